@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Startup time (until /actuator/health answers) and resident memory of the JVM build against
+# the native build. Needs the database from docker-compose and both builds:
+#
+#   docker compose up -d postgres
+#   mvn -DskipTests package
+#   mvn -Pnative -DskipTests native:compile
+#   scripts/compare-startup.sh [rounds]
+#
+# Linux only (RSS is read from /proc).
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+ROUNDS=${1:-3}
+PORT=${PORT:-18080}
+PROFILES=${PROFILES:-prod}
+LOG=target/compare-startup.log
+JAR=$(ls target/backend-*.jar | head -n 1)
+NATIVE=target/chat-backend
+
+measure() {
+    local label=$1
+    shift
+    for ((round = 1; round <= ROUNDS; round++)); do
+        local start pid ready rss
+        start=$(date +%s%N)
+        "$@" --server.port="$PORT" --management.server.port="$PORT" --spring.profiles.active="$PROFILES" > "$LOG" 2>&1 &
+        pid=$!
+        until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$label build exited during startup, see $LOG" >&2
+                exit 1
+            fi
+            sleep 0.05
+        done
+        ready=$((($(date +%s%N) - start) / 1000000))
+        rss=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        printf '%-6s round %d: ready in %6d ms, RSS %5d MB\n' "$label" "$round" "$ready" "$((rss / 1024))"
+    done
+}
+
+measure jvm java -jar "$JAR"
+measure native "$NATIVE"
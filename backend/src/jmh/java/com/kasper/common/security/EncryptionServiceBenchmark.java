@@ -0,0 +1,48 @@
+package com.kasper.common.security;
+
+import com.kasper.common.metrics.ChatMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM round trip for a typical chat message
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionServiceBenchmark {
+
+    @Param({"64", "1024"})
+    private int messageLength;
+
+    private EncryptionService encryptionService;
+    private String plainText;
+    private String cipherText;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService(new ChatMetrics(new SimpleMeterRegistry()));
+        plainText = "x".repeat(messageLength);
+        cipherText = encryptionService.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(cipherText);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return encryptionService.decrypt(encryptionService.encrypt(plainText));
+    }
+}
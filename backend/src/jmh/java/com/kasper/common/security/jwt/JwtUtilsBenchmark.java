@@ -0,0 +1,58 @@
+package com.kasper.common.security.jwt;
+
+import com.kasper.common.metrics.ChatMetrics;
+import com.kasper.common.security.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token generation and validation, as done on login and on every authenticated request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        // Same values as application.properties
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "HNPD4zRl0f7rL5uknvEBQhbBiSXx5iIx2OuY9lHd7iYF5h9eRp3kWUhHCM3TWf1s");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtRefreshExpirationMs", 604800000);
+        ReflectionTestUtils.setField(jwtUtils, "chatMetrics", new ChatMetrics(new SimpleMeterRegistry()));
+
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(UUID.randomUUID())
+                .username("benchmark-user")
+                .email("benchmark@example.com")
+                .authorities(List.of())
+                .build();
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtUtils.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtils.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+}
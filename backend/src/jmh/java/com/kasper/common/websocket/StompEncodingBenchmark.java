@@ -0,0 +1,67 @@
+package com.kasper.common.websocket;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one broadcast into a MESSAGE frame per subscriber, default encoder vs the shared-body one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StompEncodingBenchmark {
+
+    @Param({"1", "100"})
+    private int subscribers;
+
+    private final StompEncoder defaultEncoder = new StompEncoder();
+    private final PreEncodedStompEncoder preEncodedEncoder = new PreEncodedStompEncoder();
+
+    private byte[] payload;
+    private Message<byte[]>[] frames;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        payload = ("{\"chatRoomId\":\"3f1c2a9e-5d8b-4e57-9a3c-0b6f7e2d1c4a\",\"senderUsername\":\"benchmark-user\","
+                + "\"message\":\"Hello, this is a fairly ordinary chat message of moderate length.\","
+                + "\"createdAt\":\"2024-01-01T12:00:00\",\"type\":\"CHAT\"}").getBytes(StandardCharsets.UTF_8);
+
+        frames = new Message[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setDestination("/topic/chat/3f1c2a9e-5d8b-4e57-9a3c-0b6f7e2d1c4a");
+            accessor.setSubscriptionId("sub-" + i);
+            accessor.setMessageId("msg-" + i);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setHeader(PreEncodedStompEncoder.PRE_ENCODED_HEADER, Boolean.TRUE);
+            frames[i] = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        }
+    }
+
+    @Benchmark
+    public void defaultEncoder(Blackhole blackhole) {
+        for (Message<byte[]> frame : frames) {
+            blackhole.consume(defaultEncoder.encode(frame.getHeaders(), payload));
+        }
+    }
+
+    @Benchmark
+    public void preEncodedEncoder(Blackhole blackhole) {
+        for (Message<byte[]> frame : frames) {
+            blackhole.consume(preEncodedEncoder.encode(frame.getHeaders(), payload));
+        }
+    }
+}
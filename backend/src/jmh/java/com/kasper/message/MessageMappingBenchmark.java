@@ -0,0 +1,65 @@
+package com.kasper.message;
+
+import com.kasper.chat.model.ChatRoom;
+import com.kasper.common.dto.MessageResponse;
+import com.kasper.common.metrics.ChatMetrics;
+import com.kasper.common.security.EncryptionService;
+import com.kasper.message.model.Message;
+import com.kasper.user.UserProfileCache;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping done for every message of a history page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageMappingBenchmark {
+
+    @Param({"true", "false"})
+    private boolean encrypted;
+
+    private MessageService messageService;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        ChatMetrics chatMetrics = new ChatMetrics(new SimpleMeterRegistry());
+        EncryptionService encryptionService = new EncryptionService(chatMetrics);
+        User sender = User.builder().id(UUID.randomUUID()).username("benchmark-user").version(0L).build();
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        UserProfileCache userProfileCache = new UserProfileCache(userRepository, null, new SimpleMeterRegistry(), 100, 600);
+
+        // Mapping only touches the encryption service and the (warm) user cache; the broker is not needed
+        messageService = new MessageService(null, null, null, encryptionService, null, null, chatMetrics, null, null, null,
+                null, userProfileCache, null);
+
+        String content = "Hello, this is a fairly ordinary chat message of moderate length.";
+        message = Message.builder()
+                .id(UUID.randomUUID())
+                .chatRoom(ChatRoom.builder().id(UUID.randomUUID()).name("benchmark").build())
+                .sender(sender)
+                .content(encrypted ? encryptionService.encrypt(content) : content)
+                .isEncrypted(encrypted)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public MessageResponse mapToMessageResponse() {
+        return messageService.mapToMessageResponse(message);
+    }
+}
@@ -0,0 +1,53 @@
+package com.kasper.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kasper.message.dto.WebSocketMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the payload broadcast to room subscribers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketMessageSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private WebSocketMessage message;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // Configured like the ObjectMapper Spring Boot injects into MessageBroadcaster
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        message = WebSocketMessage.builder()
+                .chatRoomId(UUID.randomUUID())
+                .senderId(UUID.randomUUID())
+                .senderUsername("benchmark-user")
+                .message("Hello, this is a fairly ordinary chat message of moderate length.")
+                .createdAt(LocalDateTime.now())
+                .type(WebSocketMessage.MessageType.CHAT)
+                .build();
+        json = objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public WebSocketMessage deserialize() throws IOException {
+        return objectMapper.readValue(json, WebSocketMessage.class);
+    }
+}
@@ -5,9 +5,13 @@ import com.kasper.auth.dto.LoginRequest;
 import com.kasper.auth.dto.RefreshTokenRequest;
 import com.kasper.auth.dto.SignupRequest;
 import com.kasper.common.dto.MessageResponse;
+import com.kasper.common.security.PasswordHashingRejectedException;
 import com.kasper.common.security.UserDetailsImpl;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,15 +25,37 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
-        return ResponseEntity.ok(jwtResponse);
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        long retryAfter = authRateLimiter.tryAcquire(request.getRemoteAddr(), loginRequest.getUsername());
+        if (retryAfter > 0) {
+            return tooManyAttempts(retryAfter);
+        }
+
+        try {
+            JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
+            return ResponseEntity.ok(jwtResponse);
+        } catch (PasswordHashingRejectedException e) {
+            return hashingBusy();
+        }
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
-        MessageResponse messageResponse = authService.registerUser(signUpRequest);
+    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest, HttpServletRequest request) {
+        long retryAfter = authRateLimiter.tryAcquire(request.getRemoteAddr(), signUpRequest.getUsername());
+        if (retryAfter > 0) {
+            return tooManyAttempts(retryAfter);
+        }
+
+        MessageResponse messageResponse;
+        try {
+            messageResponse = authService.registerUser(signUpRequest);
+        } catch (PasswordHashingRejectedException e) {
+            return hashingBusy();
+        }
         
         if (messageResponse.getMessage().startsWith("Error:")) {
             return ResponseEntity.badRequest().body(messageResponse);
@@ -60,4 +86,16 @@ public class AuthController {
     public ResponseEntity<?> getCurrentUser() {
         return ResponseEntity.ok(authService.getCurrentUser());
     }
+
+    private ResponseEntity<?> tooManyAttempts(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new MessageResponse("Error: Too many attempts, please try again later"));
+    }
+
+    private ResponseEntity<?> hashingBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse("Error: Server is busy, please try again"));
+    }
 }
\ No newline at end of file
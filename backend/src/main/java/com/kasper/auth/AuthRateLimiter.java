@@ -0,0 +1,80 @@
+package com.kasper.auth;
+
+import com.kasper.common.web.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Per-IP and per-username token buckets for signin and signup, checked before any
+ * password hashing happens. The IP bucket caps one client spraying many accounts,
+ * the username bucket caps many clients guessing one account.
+ */
+@Slf4j
+@Component
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter byIp;
+    private final TokenBucketRateLimiter byUsername;
+    private final Counter ipRejections;
+    private final Counter usernameRejections;
+
+    public AuthRateLimiter(MeterRegistry registry,
+                           @Value("${app.auth.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.auth.rate-limit.ip.capacity:20}") int ipCapacity,
+                           @Value("${app.auth.rate-limit.ip.refill-per-minute:20}") int ipRefillPerMinute,
+                           @Value("${app.auth.rate-limit.username.capacity:5}") int usernameCapacity,
+                           @Value("${app.auth.rate-limit.username.refill-per-minute:5}") int usernameRefillPerMinute) {
+        this.enabled = enabled;
+        this.byIp = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute);
+        this.byUsername = new TokenBucketRateLimiter(usernameCapacity, usernameRefillPerMinute);
+        this.ipRejections = rejectionCounter(registry, "ip");
+        this.usernameRejections = rejectionCounter(registry, "username");
+    }
+
+    /**
+     * @return 0 if the attempt may proceed, otherwise the number of seconds to wait
+     */
+    public long tryAcquire(String clientIp, String username) {
+        if (!enabled) {
+            return 0;
+        }
+
+        long retryAfter = byIp.tryAcquire(clientIp);
+        if (retryAfter > 0) {
+            ipRejections.increment();
+            return retryAfter;
+        }
+
+        if (username != null) {
+            retryAfter = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT));
+            if (retryAfter > 0) {
+                usernameRejections.increment();
+                return retryAfter;
+            }
+        }
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        int evicted = byIp.evictIdle() + byUsername.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle auth rate limit buckets ({} ip, {} username remaining)",
+                    evicted, byIp.size(), byUsername.size());
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String key) {
+        return Counter.builder("chat.auth.rate-limited")
+                .description("Signin and signup attempts rejected by the auth rate limiter")
+                .tag("key", key)
+                .register(registry);
+    }
+}
@@ -21,6 +21,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -68,21 +71,16 @@ public class AuthService {
         }
 
         // Check if token exists in database and is not revoked
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenStr)
-                .orElseThrow(() -> new RuntimeException("Refresh token not found"));
-
-        if (refreshToken.isRevoked()) {
-            throw new RuntimeException("Refresh token has been revoked");
-        }
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHashAndRevokedFalse(hashToken(refreshTokenStr))
+                .orElseThrow(() -> new RuntimeException("Refresh token not found or revoked"));
 
         if (refreshToken.getExpiryDate().isBefore(Instant.now())) {
             throw new RuntimeException("Refresh token has expired");
         }
 
-        // Get user details
-        String username = jwtUtils.getUserNameFromJwtToken(refreshTokenStr);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        // Get user details from the stored token instead of parsing the JWT a second time
+        User user = userRepository.findById(refreshToken.getUserId())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + refreshToken.getUserId()));
 
         // Create new tokens
         Authentication authentication = new UsernamePasswordAuthenticationToken(
@@ -111,7 +109,7 @@ public class AuthService {
     
     private void saveRefreshToken(String token, UUID userId) {
         RefreshToken refreshToken = RefreshToken.builder()
-                .token(token)
+                .tokenHash(hashToken(token))
                 .userId(userId)
                 .expiryDate(Instant.now().plusMillis(jwtUtils.getJwtRefreshExpirationMs()))
                 .revoked(false)
@@ -121,6 +119,14 @@ public class AuthService {
         refreshTokenRepository.save(refreshToken);
     }
 
+    private static byte[] hashToken(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     public MessageResponse registerUser(SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
             return new MessageResponse("Error: Username is already taken!");
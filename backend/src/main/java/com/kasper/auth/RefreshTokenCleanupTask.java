@@ -1,14 +1,18 @@
 package com.kasper.auth;
 
 import com.kasper.auth.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RefreshTokenCleanupTask {
@@ -18,15 +22,57 @@ public class RefreshTokenCleanupTask {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.refresh-token-cleanup.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.auth.refresh-token-cleanup.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.auth.refresh-token-cleanup.pause-ms:100}")
+    private long pauseMs;
+
     /**
      * Scheduled task to clean up expired refresh tokens
-     * Runs every day at midnight
+     * Runs every 15 minutes, deleting in small batches that each commit on their own,
+     * so no run holds locks for long or leaves a large burst of dead tuples behind
      */
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
+    @Scheduled(cron = "0 */15 * * * ?")
     public void cleanupExpiredTokens() {
-        logger.info("Starting cleanup of expired refresh tokens");
-        refreshTokenRepository.deleteExpiredTokens(Instant.now());
-        logger.info("Completed cleanup of expired refresh tokens");
+        Instant now = Instant.now();
+        long start = System.nanoTime();
+        long deleted = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int rows = refreshTokenRepository.deleteExpiredTokensBatch(now, batchSize);
+            deleted += rows;
+            if (rows < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("chat.auth.refresh-token-cleanup")
+                .description("Duration of a refresh token cleanup run")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("chat.auth.refresh-token-cleanup.deleted")
+                .description("Expired refresh tokens deleted")
+                .register(meterRegistry)
+                .increment(deleted);
+
+        if (deleted > 0) {
+            double elapsedMs = elapsedNanos / 1_000_000.0;
+            logger.info("Deleted {} expired refresh tokens in {} ms ({} rows/s)",
+                    deleted, Math.round(elapsedMs), Math.round(deleted / (elapsedMs / 1000.0)));
+        }
     }
-} 
\ No newline at end of file
+}
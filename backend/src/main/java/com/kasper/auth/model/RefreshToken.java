@@ -20,8 +20,9 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // SHA-256 of the token; the JWT itself is never stored
     @Column(nullable = false, unique = true)
-    private String token;
+    private byte[] tokenHash;
 
     @Column(nullable = false)
     private UUID userId;
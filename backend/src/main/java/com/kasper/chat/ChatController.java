@@ -1,5 +1,6 @@
 package com.kasper.chat;
 
+import com.kasper.chat.dto.BulkAddMembersRequest;
 import com.kasper.chat.dto.ChatRoomRequest;
 import com.kasper.chat.dto.ChatRoomResponse;
 import com.kasper.chat.dto.JoinChatRequest;
@@ -38,6 +39,17 @@ public class ChatController {
         return ResponseEntity.ok(publicChats);
     }
     
+    /**
+     * Search public chat rooms by name, most active first; without a query lists the most active rooms
+     */
+    @GetMapping("/public/search")
+    public ResponseEntity<Page<ChatRoomResponse>> searchPublicChatRooms(
+            @RequestParam(value = "q", required = false) String query,
+            @PageableDefault(size = 10) Pageable pageable) {
+        
+        return ResponseEntity.ok(chatService.searchPublicChatRooms(query, pageable));
+    }
+    
     @PostMapping
     public ResponseEntity<ChatRoomResponse> createChatRoom(
             @Valid @RequestBody ChatRoomRequest request,
@@ -87,6 +99,26 @@ public class ChatController {
         return ResponseEntity.ok(new MessageResponse("User added to the chat successfully"));
     }
     
+    /**
+     * Add many users at once (admins only); existing members and unknown users are reported, not errors
+     */
+    @PostMapping("/{chatRoomId}/members/bulk")
+    @PreAuthorize("@chatService.isUserAdmin(#userDetails.id, #chatRoomId)")
+    public ResponseEntity<?> addMembersInBulk(
+            @PathVariable UUID chatRoomId,
+            @RequestBody BulkAddMembersRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        
+        try {
+            return ResponseEntity.ok(chatService.addUsersToChatRoom(chatRoomId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
     @DeleteMapping("/{chatRoomId}/members/{userId}")
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
     public ResponseEntity<MessageResponse> removeMemberFromChat(
@@ -0,0 +1,20 @@
+package com.kasper.chat;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published once per transaction that creates a room or changes its membership, however many
+ * members were involved, so listeners such as the public directory cache react once after commit.
+ */
+public record ChatRoomMembershipChangedEvent(UUID chatRoomId, boolean privateRoom,
+                                             List<UUID> addedUserIds, List<UUID> removedUserIds) {
+
+    public static ChatRoomMembershipChangedEvent added(UUID chatRoomId, boolean privateRoom, List<UUID> userIds) {
+        return new ChatRoomMembershipChangedEvent(chatRoomId, privateRoom, userIds, List.of());
+    }
+
+    public static ChatRoomMembershipChangedEvent removed(UUID chatRoomId, boolean privateRoom, UUID userId) {
+        return new ChatRoomMembershipChangedEvent(chatRoomId, privateRoom, List.of(), List.of(userId));
+    }
+}
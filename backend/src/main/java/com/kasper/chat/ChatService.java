@@ -1,21 +1,38 @@
 package com.kasper.chat;
 
+import com.kasper.chat.dto.BulkAddMembersRequest;
+import com.kasper.chat.dto.BulkAddMembersResponse;
 import com.kasper.chat.dto.ChatRoomRequest;
 import com.kasper.chat.dto.ChatRoomResponse;
 import com.kasper.chat.model.ChatRoom;
 import com.kasper.chat.model.ChatRoomMember;
+import com.kasper.chat.repository.ChatRoomActivityRepository;
+import com.kasper.chat.repository.ChatRoomActivityRepository.RoomActivityRow;
+import com.kasper.chat.repository.ChatRoomDiscoveryRepository;
+import com.kasper.chat.repository.ChatRoomMemberBulkRepository;
 import com.kasper.chat.repository.ChatRoomMemberRepository;
 import com.kasper.chat.repository.ChatRoomRepository;
+import com.kasper.common.security.EncryptionService;
 import com.kasper.user.model.User;
 import com.kasper.user.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,9 +40,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChatService {
     
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    
     private final ChatRoomRepository chatRoomRepository;
     private final ChatRoomMemberRepository chatRoomMemberRepository;
     private final UserRepository userRepository;
+    private final PublicRoomDirectoryCache publicRoomDirectoryCache;
+    private final ChatRoomDiscoveryRepository chatRoomDiscoveryRepository;
+    private final ChatRoomActivityRepository chatRoomActivityRepository;
+    private final EncryptionService encryptionService;
+    private final ChatRoomMemberBulkRepository chatRoomMemberBulkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.chat.members.bulk.max-size:10000}")
+    private int maxBulkMembers;
+    
+    @Value("${app.chat.members.bulk.chunk-size:1000}")
+    private int bulkMemberChunkSize;
     
     @Transactional
     public ChatRoomResponse createChatRoom(ChatRoomRequest request, UUID creatorId) {
@@ -49,13 +80,14 @@ public class ChatService {
                 .build();
         
         chatRoomMemberRepository.save(membership);
+        eventPublisher.publishEvent(ChatRoomMembershipChangedEvent.added(chatRoom.getId(), chatRoom.isPrivate(), List.of(creatorId)));
         
         return mapToChatRoomResponse(chatRoom, 1);
     }
     
     @Transactional
     public ChatRoomResponse addUserToChatRoom(UUID chatRoomId, UUID userId) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
+        ChatRoom chatRoom = chatRoomRepository.findWithCreatorById(chatRoomId)
                 .orElseThrow(() -> new EntityNotFoundException("Chat room not found with ID: " + chatRoomId));
         
         User user = userRepository.findById(userId)
@@ -74,30 +106,91 @@ public class ChatService {
                 .build();
         
         chatRoomMemberRepository.save(membership);
+        eventPublisher.publishEvent(ChatRoomMembershipChangedEvent.added(chatRoom.getId(), chatRoom.isPrivate(), List.of(userId)));
         
-        int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
+        int memberCount = (int) chatRoomMemberRepository.countByChatRoomId(chatRoom.getId());
         return mapToChatRoomResponse(chatRoom, memberCount);
     }
     
     public ChatRoomResponse getChatRoomById(UUID chatRoomId) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
+        ChatRoom chatRoom = chatRoomRepository.findWithCreatorById(chatRoomId)
                 .orElseThrow(() -> new EntityNotFoundException("Chat room not found with ID: " + chatRoomId));
         
-        int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
+        int memberCount = (int) chatRoomMemberRepository.countByChatRoomId(chatRoom.getId());
         return mapToChatRoomResponse(chatRoom, memberCount);
     }
     
+    /**
+     * The user's rooms with member count and last message, most recently active first, in one query
+     */
     public List<ChatRoomResponse> getChatRoomsByUserId(UUID userId) {
-        List<ChatRoom> chatRooms = chatRoomRepository.findAllChatRoomsByUserId(userId);
-        
-        return chatRooms.stream()
-                .map(chatRoom -> {
-                    int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
-                    return mapToChatRoomResponse(chatRoom, memberCount);
-                })
+        return chatRoomActivityRepository.findRoomsForUser(userId).stream()
+                .map(this::mapToChatRoomResponse)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Add many users to a room at once, by id and/or username.
+     * Users are resolved with one query per kind and inserted in chunks with ON CONFLICT DO NOTHING,
+     * so existing members are skipped without a lookup each. One membership event is published
+     * for the whole import.
+     *
+     * @throws IllegalArgumentException if more than the configured maximum of users is given
+     */
+    @Transactional
+    public BulkAddMembersResponse addUsersToChatRoom(UUID chatRoomId, BulkAddMembersRequest request) {
+        // An explicit null list (or null entry) in the JSON is treated as nothing requested
+        Set<UUID> requestedIds = nonNull(request.getUserIds());
+        Set<String> requestedUsernames = nonNull(request.getUsernames());
+        if (requestedIds.size() + requestedUsernames.size() > maxBulkMembers) {
+            throw new IllegalArgumentException("At most " + maxBulkMembers + " users can be added at once");
+        }
+        
+        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
+                .orElseThrow(() -> new EntityNotFoundException("Chat room not found with ID: " + chatRoomId));
+        
+        Set<UUID> userIds = new LinkedHashSet<>();
+        List<UUID> unknownUserIds = new ArrayList<>();
+        if (!requestedIds.isEmpty()) {
+            Set<UUID> existing = new HashSet<>(chatRoomMemberBulkRepository.findExistingUserIds(requestedIds));
+            for (UUID id : requestedIds) {
+                if (existing.contains(id)) {
+                    userIds.add(id);
+                } else {
+                    unknownUserIds.add(id);
+                }
+            }
+        }
+        
+        List<String> unknownUsernames = new ArrayList<>();
+        if (!requestedUsernames.isEmpty()) {
+            Map<String, UUID> idsByUsername = chatRoomMemberBulkRepository.findUserIdsByUsername(requestedUsernames);
+            for (String username : requestedUsernames) {
+                UUID id = idsByUsername.get(username);
+                if (id != null) {
+                    userIds.add(id);
+                } else {
+                    unknownUsernames.add(username);
+                }
+            }
+        }
+        
+        List<UUID> added = userIds.isEmpty()
+                ? List.of()
+                : chatRoomMemberBulkRepository.insertMembers(chatRoomId, new ArrayList<>(userIds), bulkMemberChunkSize);
+        if (!added.isEmpty()) {
+            eventPublisher.publishEvent(ChatRoomMembershipChangedEvent.added(chatRoomId, chatRoom.isPrivate(), added));
+        }
+        
+        return BulkAddMembersResponse.builder()
+                .added(added.size())
+                .alreadyMembers(userIds.size() - added.size())
+                .unknownUserIds(unknownUserIds)
+                .unknownUsernames(unknownUsernames)
+                .memberCount((int) chatRoomMemberRepository.countByChatRoomId(chatRoomId))
+                .build();
+    }
+    
     @Transactional
     public void removeMemberFromChatRoom(UUID chatRoomId, UUID userId, UUID requesterId) {
         ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
@@ -115,6 +208,7 @@ public class ChatService {
         }
         
         chatRoomMemberRepository.deleteByChatRoomAndUser(chatRoom, user);
+        eventPublisher.publishEvent(ChatRoomMembershipChangedEvent.removed(chatRoom.getId(), chatRoom.isPrivate(), userId));
     }
     
     public boolean isUserInChatRoom(UUID userId, UUID chatRoomId) {
@@ -126,15 +220,38 @@ public class ChatService {
     }
     
     /**
-     * Get a paginated list of public chat rooms
+     * Get a paginated list of public chat rooms, served from {@link PublicRoomDirectoryCache}
      */
     public Page<ChatRoomResponse> getPublicChatRooms(Pageable pageable) {
+        return publicRoomDirectoryCache.get(pageable, () -> loadPublicChatRooms(pageable));
+    }
+    
+    private Page<ChatRoomResponse> loadPublicChatRooms(Pageable pageable) {
         Page<ChatRoom> publicChats = chatRoomRepository.findByIsPrivateFalseOrderByCreatedAtDesc(pageable);
         
-        return publicChats.map(chatRoom -> {
-            int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
-            return mapToChatRoomResponse(chatRoom, memberCount);
-        });
+        // One grouped count for the page, so a room with many members costs the same as a small one
+        Map<UUID, Long> memberCounts = new HashMap<>();
+        if (publicChats.hasContent()) {
+            List<UUID> ids = publicChats.map(ChatRoom::getId).getContent();
+            for (Object[] row : chatRoomMemberRepository.countByChatRoomIds(ids)) {
+                memberCounts.put((UUID) row[0], (Long) row[1]);
+            }
+        }
+        
+        return publicChats.map(chatRoom ->
+                mapToChatRoomResponse(chatRoom, memberCounts.getOrDefault(chatRoom.getId(), 0L).intValue()));
+    }
+    
+    /**
+     * Discover public chat rooms ranked by activity. With a query, names are matched by substring
+     * or trigram similarity; without one, the most active rooms are listed.
+     */
+    public Page<ChatRoomResponse> searchPublicChatRooms(String query, Pageable pageable) {
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_SEARCH_PAGE_SIZE));
+        if (query == null || query.isBlank()) {
+            return chatRoomDiscoveryRepository.findPopular(page);
+        }
+        return chatRoomDiscoveryRepository.search(query.trim(), page);
     }
     
     /**
@@ -147,7 +264,7 @@ public class ChatService {
      */
     @Transactional
     public ChatRoomResponse joinPublicChatRoom(UUID chatRoomId, UUID userId) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
+        ChatRoom chatRoom = chatRoomRepository.findWithCreatorById(chatRoomId)
                 .orElseThrow(() -> new EntityNotFoundException("Chat room not found with ID: " + chatRoomId));
         
         // Check if the chat room is public
@@ -161,7 +278,7 @@ public class ChatService {
         // Check if user is already a member
         if (chatRoomMemberRepository.existsByChatRoomAndUser(chatRoom, user)) {
             // User is already a member, just return the chat room
-            int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
+            int memberCount = (int) chatRoomMemberRepository.countByChatRoomId(chatRoom.getId());
             return mapToChatRoomResponse(chatRoom, memberCount);
         }
         
@@ -173,11 +290,47 @@ public class ChatService {
                 .build();
         
         chatRoomMemberRepository.save(membership);
+        eventPublisher.publishEvent(ChatRoomMembershipChangedEvent.added(chatRoom.getId(), chatRoom.isPrivate(), List.of(userId)));
         
-        int memberCount = chatRoomMemberRepository.findByChatRoom(chatRoom).size();
+        int memberCount = (int) chatRoomMemberRepository.countByChatRoomId(chatRoom.getId());
         return mapToChatRoomResponse(chatRoom, memberCount);
     }
     
+    private ChatRoomResponse mapToChatRoomResponse(RoomActivityRow row) {
+        ChatRoomResponse.LastMessage lastMessage = null;
+        if (row.lastMessageId() != null) {
+            String preview = row.lastMessagePreview();
+            if (preview != null && row.lastMessageEncrypted()) {
+                preview = encryptionService.decrypt(preview);
+            }
+            lastMessage = ChatRoomResponse.LastMessage.builder()
+                    .id(row.lastMessageId())
+                    .preview(preview)
+                    .sender(ChatRoomResponse.UserSummary.builder()
+                            .id(row.lastSenderId())
+                            .username(row.lastSenderUsername())
+                            .build())
+                    .createdAt(row.lastActivityAt())
+                    .build();
+        }
+        
+        return ChatRoomResponse.builder()
+                .id(row.id())
+                .name(row.name())
+                .isPrivate(row.isPrivate())
+                .createdBy(ChatRoomResponse.UserSummary.builder()
+                        .id(row.createdById())
+                        .username(row.createdByUsername())
+                        .build())
+                .createdAt(row.createdAt())
+                .updatedAt(row.updatedAt())
+                .memberCount(row.memberCount())
+                .lastActivityAt(row.lastActivityAt() != null ? row.lastActivityAt() : row.createdAt())
+                .messageCount(row.messageCount())
+                .lastMessage(lastMessage)
+                .build();
+    }
+    
     private ChatRoomResponse mapToChatRoomResponse(ChatRoom chatRoom, int memberCount) {
         return ChatRoomResponse.builder()
                 .id(chatRoom.getId())
@@ -192,4 +345,12 @@ public class ChatService {
                 .memberCount(memberCount)
                 .build();
     }
+    
+    private static <T> Set<T> nonNull(List<T> values) {
+        Set<T> set = new LinkedHashSet<>();
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(set::add);
+        }
+        return set;
+    }
 }
\ No newline at end of file
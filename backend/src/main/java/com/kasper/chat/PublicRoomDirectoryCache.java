@@ -0,0 +1,149 @@
+package com.kasper.chat;
+
+import com.kasper.chat.dto.ChatRoomResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for pages of the public room directory, keyed by page, size and sort.
+ * <p>
+ * Entries live for a short TTL and the whole cache is dropped after any transaction that
+ * creates a public room or changes a public room's membership. Each entry holds a future,
+ * so concurrent misses for the same page wait for a single recomputation instead of each
+ * running the page, count and member queries.
+ */
+@Slf4j
+@Component
+public class PublicRoomDirectoryCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PublicRoomDirectoryCache(MeterRegistry registry,
+                                    @Value("${app.chat.public-directory-cache.enabled:true}") boolean enabled,
+                                    @Value("${app.chat.public-directory-cache.ttl-ms:10000}") long ttlMs,
+                                    @Value("${app.chat.public-directory-cache.max-entries:256}") int maxEntries) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+        this.hits = requestCounter(registry, "hit");
+        this.misses = requestCounter(registry, "miss");
+        Gauge.builder("chat.cache.size", entries, Map::size)
+                .tag("cache", "public-rooms")
+                .register(registry);
+    }
+
+    public Page<ChatRoomResponse> get(Pageable pageable, Supplier<Page<ChatRoomResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            return await(entry.page());
+        }
+
+        if (entry == null && entries.size() >= maxEntries) {
+            evictExpired(now);
+            if (entries.size() >= maxEntries) {
+                // Unusual page/size combinations; serve them uncached rather than grow without bound
+                misses.increment();
+                return loader.get();
+            }
+        }
+
+        // Only the caller whose entry wins the compute runs the loader; everyone else joins its future
+        CompletableFuture<Page<ChatRoomResponse>> created = new CompletableFuture<>();
+        Entry winner = entries.compute(key, (k, current) ->
+                current != null && !current.isExpired(now) ? current : new Entry(created, now + ttlNanos));
+
+        if (winner.page() != created) {
+            hits.increment();
+            return await(winner.page());
+        }
+
+        misses.increment();
+        try {
+            Page<ChatRoomResponse> page = loader.get();
+            created.complete(page);
+            return page;
+        } catch (RuntimeException e) {
+            // Do not cache failures; the next request retries
+            entries.remove(key, winner);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ChatRoomMembershipChangedEvent event) {
+        if (!event.privateRoom()) {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        log.debug("Public room directory cache invalidated");
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static Page<ChatRoomResponse> await(CompletableFuture<Page<ChatRoomResponse>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the public room directory", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("chat.cache.requests")
+                .tag("cache", "public-rooms")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Key(int page, int size, String sort) {
+    }
+
+    private record Entry(CompletableFuture<Page<ChatRoomResponse>> page, long expiresAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kasper.chat;
+
+import com.kasper.chat.repository.ChatRoomDiscoveryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputes the chat_room_popularity summary that ranks public rooms in discovery.
+ * The refresh runs CONCURRENTLY, so discovery queries keep reading the previous
+ * snapshot while it is rebuilt.
+ */
+@Slf4j
+@Component
+public class RoomPopularityRefresher {
+
+    private final ChatRoomDiscoveryRepository discoveryRepository;
+    private final Timer refreshTimer;
+
+    public RoomPopularityRefresher(ChatRoomDiscoveryRepository discoveryRepository, MeterRegistry registry) {
+        this.discoveryRepository = discoveryRepository;
+        this.refreshTimer = Timer.builder("chat.rooms.popularity.refresh")
+                .description("Time to refresh the public room popularity summary")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.discovery.refresh-interval-ms:300000}",
+            initialDelayString = "${app.chat.discovery.refresh-interval-ms:300000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        try {
+            discoveryRepository.refreshPopularity();
+            long elapsed = System.nanoTime() - start;
+            refreshTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Refreshed public room popularity in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh public room popularity: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.kasper.chat.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Users to add to a room, by id, by username or both
+ */
+@Data
+public class BulkAddMembersRequest {
+    
+    private List<UUID> userIds = new ArrayList<>();
+    
+    private List<String> usernames = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.kasper.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAddMembersResponse {
+    
+    private int added;
+    private int alreadyMembers;
+    private List<UUID> unknownUserIds;
+    private List<String> unknownUsernames;
+    private int memberCount;
+}
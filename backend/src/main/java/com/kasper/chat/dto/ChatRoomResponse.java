@@ -21,6 +21,10 @@ public class ChatRoomResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private int memberCount;
+    // Filled in for the user's own room list
+    private LocalDateTime lastActivityAt;
+    private Long messageCount;
+    private LastMessage lastMessage;
     
     @Data
     @Builder
@@ -30,4 +34,15 @@ public class ChatRoomResponse {
         private UUID id;
         private String username;
     }
-}
\ No newline at end of file
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LastMessage {
+        private UUID id;
+        private String preview;
+        private UserSummary sender;
+        private LocalDateTime createdAt;
+    }
+}
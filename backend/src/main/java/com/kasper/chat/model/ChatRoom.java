@@ -4,19 +4,28 @@ import com.kasper.user.model.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.UUID;
 
+/**
+ * A chat room. Membership is deliberately not mapped as a collection here: members are only
+ * ever read through ChatRoomMemberRepository queries, so logging, hashing or serializing a room
+ * can never pull in its member list. Equality is by id and toString skips associations.
+ */
 @Entity
 @Table(name = "chat_rooms")
-@Data
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,21 +33,22 @@ public class ChatRoom {
 
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
+    @ToString.Include
+    @EqualsAndHashCode.Include
     private UUID id;
 
     @Column(nullable = false)
+    @ToString.Include
     private String name;
 
     @Column(name = "is_private")
+    @ToString.Include
     private boolean isPrivate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
-    @OneToMany(mappedBy = "chatRoom", cascade = CascadeType.ALL, orphanRemoval = true)
-    private Set<ChatRoomMember> members = new HashSet<>();
-
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -4,8 +4,11 @@ import com.kasper.user.model.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,7 +17,10 @@ import java.util.UUID;
 @Entity
 @Table(name = "chat_room_members",
        uniqueConstraints = { @UniqueConstraint(columnNames = { "user_id", "chat_room_id" }) })
-@Data
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,17 +28,20 @@ public class ChatRoomMember {
 
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
+    @ToString.Include
+    @EqualsAndHashCode.Include
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "chat_room_id", nullable = false)
     private ChatRoom chatRoom;
 
     @Column(name = "is_admin")
+    @ToString.Include
     private boolean isAdmin;
 
     @CreationTimestamp
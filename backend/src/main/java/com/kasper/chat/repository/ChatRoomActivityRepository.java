@@ -0,0 +1,148 @@
+package com.kasper.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads and writes the chat_room_activity summary
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatRoomActivityRepository {
+
+    // Counts always add up; the "last message" columns only move forward in time,
+    // so flushes from several nodes can interleave in any order
+    private static final String UPSERT_SQL =
+            "INSERT INTO public.chat_room_activity AS a (chat_room_id, last_message_id, last_message_preview, " +
+            "last_message_encrypted, last_sender_id, last_activity_at, message_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (chat_room_id) DO UPDATE SET " +
+            "message_count = a.message_count + EXCLUDED.message_count, " +
+            "last_message_id = CASE WHEN a.last_activity_at IS NULL OR EXCLUDED.last_activity_at >= a.last_activity_at " +
+            "THEN EXCLUDED.last_message_id ELSE a.last_message_id END, " +
+            "last_message_preview = CASE WHEN a.last_activity_at IS NULL OR EXCLUDED.last_activity_at >= a.last_activity_at " +
+            "THEN EXCLUDED.last_message_preview ELSE a.last_message_preview END, " +
+            "last_message_encrypted = CASE WHEN a.last_activity_at IS NULL OR EXCLUDED.last_activity_at >= a.last_activity_at " +
+            "THEN EXCLUDED.last_message_encrypted ELSE a.last_message_encrypted END, " +
+            "last_sender_id = CASE WHEN a.last_activity_at IS NULL OR EXCLUDED.last_activity_at >= a.last_activity_at " +
+            "THEN EXCLUDED.last_sender_id ELSE a.last_sender_id END, " +
+            "last_activity_at = GREATEST(a.last_activity_at, EXCLUDED.last_activity_at)";
+
+    private static final String ROOMS_FOR_USER_SQL =
+            "SELECT cr.id, cr.name, cr.is_private, cr.created_by, creator.username AS created_by_username, " +
+            "cr.created_at, cr.updated_at, " +
+            "(SELECT COUNT(*) FROM public.chat_room_members mc WHERE mc.chat_room_id = cr.id) AS member_count, " +
+            "a.last_message_id, a.last_message_preview, a.last_message_encrypted, a.last_sender_id, " +
+            "sender.username AS last_sender_username, a.last_activity_at, COALESCE(a.message_count, 0) AS message_count " +
+            "FROM public.chat_room_members m " +
+            "JOIN public.chat_rooms cr ON cr.id = m.chat_room_id " +
+            "JOIN public.users creator ON creator.id = cr.created_by " +
+            "LEFT JOIN public.chat_room_activity a ON a.chat_room_id = cr.id " +
+            "LEFT JOIN public.users sender ON sender.id = a.last_sender_id " +
+            "WHERE m.user_id = ? " +
+            "ORDER BY COALESCE(a.last_activity_at, cr.created_at) DESC, cr.id";
+
+    // Rooms with a message in the quiet window may have increments still pending on some node
+    private static final String RECONCILE_SQL =
+            "UPDATE public.chat_room_activity a SET message_count = c.message_count " +
+            "FROM (SELECT b.chat_room_id, " +
+            "(SELECT COUNT(*) FROM public.messages m WHERE m.chat_room_id = b.chat_room_id) AS message_count " +
+            "FROM public.chat_room_activity b WHERE b.chat_room_id = ANY(?)) c " +
+            "WHERE a.chat_room_id = c.chat_room_id AND a.message_count <> c.message_count " +
+            "AND NOT EXISTS (SELECT 1 FROM public.messages r WHERE r.chat_room_id = a.chat_room_id AND r.created_at > ?)";
+
+    private static final RowMapper<RoomActivityRow> ROW_MAPPER = (rs, rowNum) -> new RoomActivityRow(
+            rs.getObject("id", UUID.class),
+            rs.getString("name"),
+            rs.getBoolean("is_private"),
+            rs.getObject("created_by", UUID.class),
+            rs.getString("created_by_username"),
+            toLocalDateTime(rs.getTimestamp("created_at")),
+            toLocalDateTime(rs.getTimestamp("updated_at")),
+            rs.getInt("member_count"),
+            rs.getObject("last_message_id", UUID.class),
+            rs.getString("last_message_preview"),
+            rs.getBoolean("last_message_encrypted"),
+            rs.getObject("last_sender_id", UUID.class),
+            rs.getString("last_sender_username"),
+            toLocalDateTime(rs.getTimestamp("last_activity_at")),
+            rs.getLong("message_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One pending update per room: the newest message and how many messages it stands for
+     */
+    public record ActivityUpdate(UUID chatRoomId, UUID lastMessageId, String preview, boolean encrypted,
+                                 UUID senderId, LocalDateTime lastActivityAt, long messageCount) {
+    }
+
+    public record RoomActivityRow(UUID id, String name, boolean isPrivate, UUID createdById, String createdByUsername,
+                                  LocalDateTime createdAt, LocalDateTime updatedAt, int memberCount,
+                                  UUID lastMessageId, String lastMessagePreview, boolean lastMessageEncrypted,
+                                  UUID lastSenderId, String lastSenderUsername, LocalDateTime lastActivityAt,
+                                  long messageCount) {
+    }
+
+    /**
+     * Apply updates in chat room id order, so concurrent flushes lock rows in the same order
+     */
+    public void upsert(List<ActivityUpdate> updates) {
+        List<ActivityUpdate> ordered = updates.stream()
+                .sorted(Comparator.comparing(ActivityUpdate::chatRoomId))
+                .toList();
+        jdbcTemplate.batchUpdate(UPSERT_SQL, ordered, ordered.size(), (ps, update) -> {
+            ps.setObject(1, update.chatRoomId());
+            ps.setObject(2, update.lastMessageId());
+            ps.setString(3, update.preview());
+            ps.setBoolean(4, update.encrypted());
+            ps.setObject(5, update.senderId());
+            ps.setTimestamp(6, Timestamp.valueOf(update.lastActivityAt()));
+            ps.setLong(7, update.messageCount());
+        });
+    }
+
+    /**
+     * Up to {@code limit} room ids after the given one, in id order, for batched maintenance
+     */
+    public List<UUID> findChatRoomIdsAfter(UUID after, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT chat_room_id FROM public.chat_room_activity WHERE chat_room_id > ? ORDER BY chat_room_id LIMIT ?",
+                UUID.class, after, limit);
+    }
+
+    /**
+     * Reset message_count to the rows actually in the messages table, for the given rooms that
+     * have had no message since {@code quietSince}
+     *
+     * @return the number of rooms whose count was corrected
+     */
+    public int reconcileMessageCounts(List<UUID> chatRoomIds, LocalDateTime quietSince) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RECONCILE_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", chatRoomIds.toArray()));
+            statement.setTimestamp(2, Timestamp.valueOf(quietSince));
+            return statement;
+        });
+    }
+
+    /**
+     * The user's rooms with their member count and last activity, most recently active first
+     */
+    public List<RoomActivityRow> findRoomsForUser(UUID userId) {
+        return jdbcTemplate.query(ROOMS_FOR_USER_SQL, ROW_MAPPER, userId);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
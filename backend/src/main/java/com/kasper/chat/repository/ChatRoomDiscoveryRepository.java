@@ -0,0 +1,89 @@
+package com.kasper.chat.repository;
+
+import com.kasper.chat.dto.ChatRoomResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Public room discovery queries. Browsing reads the chat_room_popularity summary in score order;
+ * searching matches names through the trigram index and ranks the matches by the same score.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatRoomDiscoveryRepository {
+
+    private static final String POPULAR_ROOMS =
+            "SELECT p.chat_room_id AS id, p.name, p.created_by, u.username AS created_by_username, " +
+            "p.created_at, p.updated_at, p.member_count " +
+            "FROM public.chat_room_popularity p " +
+            "JOIN public.users u ON u.id = p.created_by " +
+            "ORDER BY p.activity_score DESC, p.chat_room_id " +
+            "LIMIT ? OFFSET ?";
+
+    // Rooms created since the last refresh have no summary row yet and rank with a score of 0
+    private static final String SEARCH_ROOMS =
+            "SELECT cr.id, cr.name, cr.created_by, u.username AS created_by_username, " +
+            "cr.created_at, cr.updated_at, COALESCE(p.member_count, 0) AS member_count " +
+            "FROM public.chat_rooms cr " +
+            "JOIN public.users u ON u.id = cr.created_by " +
+            "LEFT JOIN public.chat_room_popularity p ON p.chat_room_id = cr.id " +
+            "WHERE cr.is_private = FALSE AND (cr.name ILIKE ? OR cr.name % ?) " +
+            "ORDER BY COALESCE(p.activity_score, 0) DESC, similarity(cr.name, ?) DESC, cr.id " +
+            "LIMIT ? OFFSET ?";
+
+    private static final String COUNT_SEARCH =
+            "SELECT COUNT(*) FROM public.chat_rooms cr " +
+            "WHERE cr.is_private = FALSE AND (cr.name ILIKE ? OR cr.name % ?)";
+
+    private static final RowMapper<ChatRoomResponse> ROOM_MAPPER = (rs, rowNum) -> ChatRoomResponse.builder()
+            .id(rs.getObject("id", UUID.class))
+            .name(rs.getString("name"))
+            .isPrivate(false)
+            .createdBy(ChatRoomResponse.UserSummary.builder()
+                    .id(rs.getObject("created_by", UUID.class))
+                    .username(rs.getString("created_by_username"))
+                    .build())
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .memberCount(rs.getInt("member_count"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Page<ChatRoomResponse> findPopular(Pageable pageable) {
+        List<ChatRoomResponse> rooms = jdbcTemplate.query(POPULAR_ROOMS, ROOM_MAPPER,
+                pageable.getPageSize(), pageable.getOffset());
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.chat_room_popularity", Long.class);
+        return new PageImpl<>(rooms, pageable, total == null ? 0 : total);
+    }
+
+    public Page<ChatRoomResponse> search(String query, Pageable pageable) {
+        String pattern = "%" + escapeLike(query) + "%";
+        List<ChatRoomResponse> rooms = jdbcTemplate.query(SEARCH_ROOMS, ROOM_MAPPER,
+                pattern, query, query, pageable.getPageSize(), pageable.getOffset());
+        Long total = jdbcTemplate.queryForObject(COUNT_SEARCH, Long.class, pattern, query);
+        return new PageImpl<>(rooms, pageable, total == null ? 0 : total);
+    }
+
+    public void refreshPopularity() {
+        jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY public.chat_room_popularity");
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kasper.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based membership writes for importing many users into a room at once.
+ * Every statement takes a whole chunk as a Postgres array, so a chunk costs one round trip.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatRoomMemberBulkRepository {
+
+    private static final String INSERT_MEMBERS_SQL =
+            "INSERT INTO public.chat_room_members (id, user_id, chat_room_id, is_admin, joined_at) " +
+            "SELECT gen_random_uuid(), u.id, ?, FALSE, CURRENT_TIMESTAMP " +
+            "FROM unnest(?) AS u(id) " +
+            "ON CONFLICT (user_id, chat_room_id) DO NOTHING " +
+            "RETURNING user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The subset of the given ids that belong to existing users
+     */
+    public List<UUID> findExistingUserIds(Collection<UUID> userIds) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id FROM public.users WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("uuid", userIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+    }
+
+    /**
+     * User ids by username, for the usernames that exist
+     */
+    public Map<String, UUID> findUserIdsByUsername(Collection<String> usernames) {
+        Map<String, UUID> ids = new LinkedHashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT username, id FROM public.users WHERE username = ANY(?)");
+            ps.setArray(1, con.createArrayOf("varchar", usernames.toArray()));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString(1), rs.getObject(2, UUID.class));
+        });
+        return ids;
+    }
+
+    /**
+     * Add the users as regular members in chunks of {@code chunkSize}, skipping existing members.
+     *
+     * @return the ids of the users that were actually added
+     */
+    public List<UUID> insertMembers(UUID chatRoomId, List<UUID> userIds, int chunkSize) {
+        List<UUID> added = new ArrayList<>(userIds.size());
+        for (int start = 0; start < userIds.size(); start += chunkSize) {
+            List<UUID> chunk = userIds.subList(start, Math.min(userIds.size(), start + chunkSize));
+            added.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_MEMBERS_SQL);
+                Array ids = con.createArrayOf("uuid", chunk.toArray());
+                ps.setObject(1, chatRoomId);
+                ps.setArray(2, ids);
+                return ps;
+            }, (rs, rowNum) -> rs.getObject(1, UUID.class)));
+        }
+        return added;
+    }
+}
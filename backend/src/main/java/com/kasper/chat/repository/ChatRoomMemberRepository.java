@@ -4,8 +4,11 @@ import com.kasper.chat.model.ChatRoom;
 import com.kasper.chat.model.ChatRoomMember;
 import com.kasper.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +18,16 @@ public interface ChatRoomMemberRepository extends JpaRepository<ChatRoomMember,
     
     List<ChatRoomMember> findByChatRoom(ChatRoom chatRoom);
     
+    long countByChatRoomId(UUID chatRoomId);
+    
+    // Member counts for a page of rooms in one query: [chatRoomId, count]
+    @Query("SELECT m.chatRoom.id, COUNT(m) FROM ChatRoomMember m WHERE m.chatRoom.id IN :chatRoomIds GROUP BY m.chatRoom.id")
+    List<Object[]> countByChatRoomIds(@Param("chatRoomIds") Collection<UUID> chatRoomIds);
+    
+    // The subset of the given rooms the user belongs to
+    @Query("SELECT m.chatRoom.id FROM ChatRoomMember m WHERE m.user.id = :userId AND m.chatRoom.id IN :chatRoomIds")
+    List<UUID> findMemberChatRoomIds(@Param("userId") UUID userId, @Param("chatRoomIds") Collection<UUID> chatRoomIds);
+    
     List<ChatRoomMember> findByUser(User user);
     
     Optional<ChatRoomMember> findByChatRoomAndUser(ChatRoom chatRoom, User user);
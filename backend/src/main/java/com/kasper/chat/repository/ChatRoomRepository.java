@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -17,17 +18,23 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, UUID> {
     
     List<ChatRoom> findByCreatedBy(User user);
     
-    @Query("SELECT cr FROM ChatRoom cr JOIN cr.members m WHERE m.user.id = :userId")
+    @Query("SELECT m.chatRoom FROM ChatRoomMember m WHERE m.user.id = :userId")
     List<ChatRoom> findAllChatRoomsByUserId(@Param("userId") UUID userId);
     
-    @Query("SELECT CASE WHEN COUNT(cr) > 0 THEN true ELSE false END FROM ChatRoom cr JOIN cr.members m " +
-           "WHERE cr.id = :chatRoomId AND m.user.id = :userId")
+    @Query("SELECT CASE WHEN COUNT(m) > 0 THEN true ELSE false END FROM ChatRoomMember m " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.user.id = :userId")
     boolean isUserInChatRoom(@Param("userId") UUID userId, @Param("chatRoomId") UUID chatRoomId);
     
-    @Query("SELECT CASE WHEN COUNT(cr) > 0 THEN true ELSE false END FROM ChatRoom cr JOIN cr.members m " +
-           "WHERE cr.id = :chatRoomId AND m.user.id = :userId AND m.isAdmin = true")
+    @Query("SELECT CASE WHEN COUNT(m) > 0 THEN true ELSE false END FROM ChatRoomMember m " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.user.id = :userId AND m.isAdmin = true")
     boolean isUserAdminOfChatRoom(@Param("userId") UUID userId, @Param("chatRoomId") UUID chatRoomId);
     
-    // Find all public chat rooms (isPrivate = false)
+    // Room with its creator, which every ChatRoomResponse needs
+    @Query("SELECT cr FROM ChatRoom cr JOIN FETCH cr.createdBy WHERE cr.id = :chatRoomId")
+    Optional<ChatRoom> findWithCreatorById(@Param("chatRoomId") UUID chatRoomId);
+    
+    // Find all public chat rooms (isPrivate = false), creators fetched in the same query
+    @Query(value = "SELECT cr FROM ChatRoom cr JOIN FETCH cr.createdBy WHERE cr.isPrivate = false ORDER BY cr.createdAt DESC",
+           countQuery = "SELECT COUNT(cr) FROM ChatRoom cr WHERE cr.isPrivate = false")
     Page<ChatRoom> findByIsPrivateFalseOrderByCreatedAtDesc(Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.kasper.common.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Selective lazy initialization for the fast-start profile. Everything not needed to accept the
+ * first request is built on demand; the JPA bootstrap stays eager so it runs in the background
+ * while the rest of the context starts, and the security filter chain stays eager so the first
+ * request does not pay for it. Beans with {@code @Scheduled} methods are kept eager by Spring Boot.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter fastStartEagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(EntityManagerFactory.class, SecurityFilterChain.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.kasper.common.config;
+
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-shot runner for the migrate profile. By the time runners are called Flyway has applied
+ * the pending migrations and Hibernate has validated the mapping against them, so all that is
+ * left is to report the schema version and exit.
+ */
+@Component
+@Profile("migrate")
+@RequiredArgsConstructor
+public class MigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    private final Flyway flyway;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MigrationInfo current = flyway.info().current();
+        logger.info("Schema migrated to version {}, exiting", current == null ? "<none>" : current.getVersion());
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,52 @@
+package com.kasper.common.config;
+
+import com.kasper.common.dto.ReconnectHint;
+import com.kasper.message.dto.SyncChunk;
+import com.kasper.message.dto.WebSocketMessage;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Reflection hints for the native build ({@code mvn -Pnative native:compile}) that AOT
+ * processing cannot infer on its own. Entities, controller payloads and {@code @MessageMapping}
+ * payloads are registered by Spring; what is left are types serialized through a plain
+ * {@code ObjectMapper} or {@code SimpMessagingTemplate} (pre-encoded STOMP broadcasts, sync
+ * chunks, reconnect hints, {@code Page} responses) and the jjwt implementation classes that
+ * jjwt-api instantiates by name.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageHints.Registrar.class)
+@RegisterReflectionForBinding({WebSocketMessage.class, SyncChunk.class, ReconnectHint.class, PageImpl.class, PageRequest.class, Sort.class, Sort.Order.class})
+public class NativeImageHints {
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        private static final String[] JJWT_IMPLEMENTATIONS = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.impl.DefaultHeader",
+                "io.jsonwebtoken.impl.DefaultJwsHeader",
+                "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+                "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : JJWT_IMPLEMENTATIONS) {
+                hints.reflection().registerTypeIfPresent(classLoader, type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kasper.common.config;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup self-check for the prod profile: warns when settings that slow down
+ * the message write path (SQL logging, unbatched inserts) are active.
+ */
+@Component
+@Profile("prod")
+@RequiredArgsConstructor
+public class PerformanceSettingsCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceSettingsCheck.class);
+
+    private final Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkSettings() {
+        List<String> problems = findProblems();
+        if (problems.isEmpty()) {
+            logger.info("Performance settings check passed");
+            return;
+        }
+        problems.forEach(problem -> logger.warn("Performance settings check: {}", problem));
+    }
+
+    List<String> findProblems() {
+        List<String> problems = new ArrayList<>();
+
+        if (environment.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+            problems.add("spring.jpa.show-sql is enabled, every statement is logged");
+        }
+        if (environment.getProperty("spring.jpa.properties.hibernate.format_sql", Boolean.class, false)) {
+            problems.add("hibernate.format_sql is enabled");
+        }
+
+        int batchSize = environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", Integer.class, 0);
+        if (batchSize <= 1) {
+            problems.add("hibernate.jdbc.batch_size is " + batchSize + ", inserts are not batched");
+        }
+        if (!environment.getProperty("spring.jpa.properties.hibernate.order_inserts", Boolean.class, false)) {
+            problems.add("hibernate.order_inserts is disabled, mixed-entity inserts break batches");
+        }
+
+        return problems;
+    }
+}
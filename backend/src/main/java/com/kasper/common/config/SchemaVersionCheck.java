@@ -0,0 +1,96 @@
+package com.kasper.common.config;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flyway check-only mode: instead of validating every migration at startup, compare the newest
+ * version recorded in the schema history with the newest migration bundled in this build, and
+ * refuse to start against a schema that has not been migrated yet.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "app.flyway.check-only.enabled", havingValue = "true")
+public class SchemaVersionCheck implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaVersionCheck.class);
+
+    private static final Pattern VERSIONED_MIGRATION = Pattern.compile("^V(.+?)__.*\\.sql$");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String[] locations;
+    private final String historyTable;
+
+    public SchemaVersionCheck(JdbcTemplate jdbcTemplate,
+                              @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+                              @Value("${spring.flyway.default-schema:public}") String schema,
+                              @Value("${spring.flyway.table:flyway_schema_history}") String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.locations = locations;
+        this.historyTable = schema + "." + table;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        MigrationVersion expected = bundledVersion();
+        MigrationVersion applied = appliedVersion();
+        if (applied.compareTo(expected) < 0) {
+            throw new IllegalStateException("Database schema is at version " + applied
+                    + " but this build expects " + expected + "; run the migrate profile first");
+        }
+        logger.info("Schema version check passed (database {}, build {})", applied, expected);
+    }
+
+    MigrationVersion bundledVersion() {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        MigrationVersion newest = MigrationVersion.EMPTY;
+        try {
+            for (String location : locations) {
+                for (Resource resource : resolver.getResources(location + "/V*.sql")) {
+                    Matcher matcher = VERSIONED_MIGRATION.matcher(resource.getFilename());
+                    if (matcher.matches()) {
+                        newest = max(newest, MigrationVersion.fromVersion(matcher.group(1)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to list migrations", e);
+        }
+        return newest;
+    }
+
+    private MigrationVersion appliedVersion() {
+        List<String> versions;
+        try {
+            versions = jdbcTemplate.queryForList(
+                    "SELECT version FROM " + historyTable + " WHERE success AND version IS NOT NULL", String.class);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Failed to read " + historyTable + "; run the migrate profile first", e);
+        }
+        MigrationVersion newest = MigrationVersion.EMPTY;
+        for (String version : versions) {
+            newest = max(newest, MigrationVersion.fromVersion(version));
+        }
+        return newest;
+    }
+
+    private static MigrationVersion max(MigrationVersion a, MigrationVersion b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
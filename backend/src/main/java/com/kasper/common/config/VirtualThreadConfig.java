@@ -0,0 +1,63 @@
+package com.kasper.common.config;
+
+import com.kasper.common.web.RequestConcurrencyLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * Virtual-thread execution mode, active with {@code spring.threads.virtual.enabled=true} on Java 21+.
+ * <p>
+ * Spring Boot already moves Tomcat request handling and {@code @Scheduled} tasks onto virtual
+ * threads in this mode; this configuration does the same for the STOMP clientInbound and
+ * clientOutbound channels. Requests are admitted at most as many at a time as the Hikari pool
+ * has connections, and the channel executors are bounded by a concurrency limit, so that cheap
+ * threads cannot turn into an unbounded queue for connections.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Value("${app.virtual-threads.websocket-concurrency-limit:100}")
+    private int websocketConcurrencyLimit;
+
+    @Value("${app.virtual-threads.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrentRequests;
+
+    @Value("${app.virtual-threads.request-acquire-timeout-ms:2000}")
+    private long requestAcquireTimeoutMs;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(virtualThreadExecutor("ws-inbound-"));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(virtualThreadExecutor("ws-outbound-"));
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestConcurrencyLimitFilter> requestConcurrencyLimitFilter() {
+        FilterRegistrationBean<RequestConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new RequestConcurrencyLimitFilter(maxConcurrentRequests, requestAcquireTimeoutMs));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        // Submitters block once the limit is reached, pushing back on the socket reader
+        executor.setConcurrencyLimit(websocketConcurrencyLimit);
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kasper.common.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fails startup when virtual threads are requested on a JVM that cannot provide them.
+ * Spring Boot silently falls back to platform threads below Java 21, which would run the
+ * virtual-threads profile without {@link VirtualThreadConfig} and its concurrency guards.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadRuntimeCheck implements InitializingBean {
+
+    private static final int MIN_FEATURE_VERSION = 21;
+
+    @Override
+    public void afterPropertiesSet() {
+        int feature = Runtime.version().feature();
+        if (feature < MIN_FEATURE_VERSION) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs Java " + MIN_FEATURE_VERSION
+                    + " or newer, but this JVM is Java " + feature);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.kasper.common.config;
 
+import com.kasper.common.security.BoundedPasswordEncoder;
 import com.kasper.common.security.UserDetailsServiceImpl;
 import com.kasper.common.security.jwt.AuthEntryPointJwt;
 import com.kasper.common.security.jwt.AuthTokenFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -29,6 +32,19 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 means half the available cores
+    @Value("${app.auth.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${app.auth.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.auth.password-hashing.timeout-ms:5000}")
+    private long passwordHashingTimeoutMs;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -51,7 +67,11 @@ public class WebSecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = passwordHashingThreads > 0
+                ? passwordHashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads,
+                passwordHashingQueueCapacity, passwordHashingTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -65,7 +85,9 @@ public class WebSecurityConfig {
                 auth.requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/api/test/**").permitAll()
                     .requestMatchers("/ws/**").permitAll() // WebSocket endpoints
+                    .requestMatchers("/ws-native").permitAll() // Native WebSocket endpoint
                     .requestMatchers("/topic/**").permitAll() // WebSocket topics
+                    .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Scraped by monitoring, only served on the internal management port
                     .anyRequest().authenticated()
             );
         
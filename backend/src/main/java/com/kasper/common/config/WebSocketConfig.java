@@ -1,26 +1,97 @@
 package com.kasper.common.config;
 
+import com.kasper.common.metrics.MessageTraceInterceptor;
+import com.kasper.common.websocket.CompressionAwareHandshakeHandler;
+import com.kasper.common.websocket.PreEncodedStompEncoder;
+import com.kasper.common.websocket.UserQueueDestinationInterceptor;
+import com.kasper.common.websocket.WebSocketDrainer;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String[] ALLOWED_ORIGIN_PATTERNS = {
+            "http://localhost:5173", "http://localhost:5174", "http://localhost:8080"
+    };
+
+    @Value("${app.websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Autowired
+    private MessageTraceInterceptor messageTraceInterceptor;
+
+    @Autowired
+    private WebSocketDrainer webSocketDrainer;
+
+    @Autowired
+    private UserQueueDestinationInterceptor userQueueDestinationInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /queue carries per-session replies such as catch-up sync chunks (/user/queue/...)
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(userQueueDestinationInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(messageTraceInterceptor);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        CompressionAwareHandshakeHandler handshakeHandler = new CompressionAwareHandshakeHandler(compressionEnabled);
+
+        // Native WebSocket endpoint: no SockJS info request or framing, permessage-deflate when offered
+        registry.addEndpoint("/ws-native")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(webSocketDrainer)
+                .setAllowedOriginPatterns(ALLOWED_ORIGIN_PATTERNS);
+
+        // SockJS fallback for clients that cannot open a native WebSocket
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("http://localhost:5173", "http://localhost:5174", "http://localhost:8080")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(webSocketDrainer)
+                .setAllowedOriginPatterns(ALLOWED_ORIGIN_PATTERNS)
 //                .setAllowCredentials(true)
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    /**
+     * Swap in the encoder that shares one encoded body across all subscribers of a broadcast
+     */
+    @Bean
+    public SmartInitializingSingleton stompEncoderInitializer(
+            @Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler) {
+        return () -> {
+            WebSocketHandler handler = WebSocketHandlerDecorator.unwrap(webSocketHandler);
+            if (handler instanceof SubProtocolWebSocketHandler subProtocolHandler) {
+                PreEncodedStompEncoder encoder = new PreEncodedStompEncoder();
+                subProtocolHandler.getProtocolHandlers().stream()
+                        .filter(StompSubProtocolHandler.class::isInstance)
+                        .map(StompSubProtocolHandler.class::cast)
+                        .forEach(stompHandler -> stompHandler.setEncoder(encoder));
+            }
+        };
+    }
+}
@@ -21,6 +21,7 @@ public class MessageResponse {
     private String fileUrl;
     private LocalDateTime createdAt;
     private boolean encrypted;
+    private UUID clientMessageId;
     
     @Data
     @Builder
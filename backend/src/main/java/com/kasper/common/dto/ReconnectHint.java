@@ -0,0 +1,17 @@
+package com.kasper.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sent to {@code /user/queue/reconnect} when the node is about to shut down: the client should
+ * reconnect (to another node) after the given delay
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconnectHint {
+    
+    private long reconnectAfterMs;
+}
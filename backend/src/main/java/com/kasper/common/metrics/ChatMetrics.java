@@ -0,0 +1,88 @@
+package com.kasper.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the chat hot paths. All names share the {@code chat.} prefix so percentiles and
+ * histograms can be switched on for the whole group through
+ * {@code management.metrics.distribution.*.chat}.
+ */
+@Component
+public class ChatMetrics {
+
+    private final Timer messageSave;
+    private final Timer messageBroadcast;
+    private final Timer encrypt;
+    private final Timer decrypt;
+    private final Timer jwtValidation;
+    private final Counter jwtRejected;
+    private final DistributionSummary uploadBytes;
+    private final DistributionSummary downloadBytes;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.messageSave = Timer.builder("chat.message.save")
+                .description("Time to persist a chat message, including encryption and broadcast")
+                .register(registry);
+        this.messageBroadcast = Timer.builder("chat.message.broadcast")
+                .description("Time to serialize and publish a message to the broker")
+                .register(registry);
+        this.encrypt = Timer.builder("chat.encryption")
+                .tag("operation", "encrypt")
+                .description("AES-GCM encryption time")
+                .register(registry);
+        this.decrypt = Timer.builder("chat.encryption")
+                .tag("operation", "decrypt")
+                .description("AES-GCM decryption time")
+                .register(registry);
+        this.jwtValidation = Timer.builder("chat.jwt.validation")
+                .description("JWT signature and claims validation time")
+                .register(registry);
+        this.jwtRejected = Counter.builder("chat.jwt.rejected")
+                .description("JWTs that failed validation")
+                .register(registry);
+        this.uploadBytes = DistributionSummary.builder("chat.file.bytes")
+                .tag("direction", "upload")
+                .baseUnit("bytes")
+                .register(registry);
+        this.downloadBytes = DistributionSummary.builder("chat.file.bytes")
+                .tag("direction", "download")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public Timer messageSave() {
+        return messageSave;
+    }
+
+    public Timer messageBroadcast() {
+        return messageBroadcast;
+    }
+
+    public Timer encrypt() {
+        return encrypt;
+    }
+
+    public Timer decrypt() {
+        return decrypt;
+    }
+
+    public Timer jwtValidation() {
+        return jwtValidation;
+    }
+
+    public Counter jwtRejected() {
+        return jwtRejected;
+    }
+
+    public DistributionSummary uploadBytes() {
+        return uploadBytes;
+    }
+
+    public DistributionSummary downloadBytes() {
+        return downloadBytes;
+    }
+}
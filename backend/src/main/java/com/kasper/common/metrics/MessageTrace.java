@@ -0,0 +1,50 @@
+package com.kasper.common.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Server-assigned trace of one chat message, carried from the REST entry point to every
+ * subscriber's outbound frame. Timestamps are {@link System#nanoTime()} values.
+ */
+public final class MessageTrace {
+
+    /** Message header holding the trace on broker and outbound-channel messages */
+    public static final String HEADER = "messageTrace";
+
+    /** STOMP header exposing the trace id to clients */
+    public static final String NATIVE_HEADER = "trace-id";
+
+    private final String id;
+    private final long receivedNanos;
+    private volatile long persistedNanos;
+    private volatile long publishedNanos;
+
+    MessageTrace() {
+        this.id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        this.receivedNanos = System.nanoTime();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    long getPersistedNanos() {
+        return persistedNanos;
+    }
+
+    long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    void markPersisted() {
+        persistedNanos = System.nanoTime();
+    }
+
+    void markPublished() {
+        publishedNanos = System.nanoTime();
+    }
+}
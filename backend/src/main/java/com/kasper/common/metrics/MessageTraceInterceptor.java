@@ -0,0 +1,26 @@
+package com.kasper.common.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Closes message traces on the clientOutbound channel, once the frame for a session is written
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageTraceInterceptor implements ExecutorChannelInterceptor {
+
+    private final MessageTracer messageTracer;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex == null && message.getHeaders().get(MessageTrace.HEADER) instanceof MessageTrace trace) {
+            messageTracer.delivered(trace, SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.kasper.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process latency tracing for chat messages.
+ * <p>
+ * A trace is started when a message enters {@code MessageController}, bound to the request
+ * thread, stamped after the insert and at publish time, and then travels as a message header
+ * through the broker. Each subscriber's outbound frame closes the trace for that session.
+ * Every stage feeds the {@code chat.message.stage} timer; messages slower than the threshold
+ * are logged with their stage breakdown, sampled to keep the log readable under load.
+ */
+@Slf4j
+@Component
+public class MessageTracer {
+
+    private static final ThreadLocal<MessageTrace> CURRENT = new ThreadLocal<>();
+
+    private final Timer persistStage;
+    private final Timer publishStage;
+    private final Timer fanoutStage;
+    private final Timer totalStage;
+
+    @Value("${app.messages.tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.messages.tracing.slow-threshold-ms:500}")
+    private long slowThresholdMs;
+
+    @Value("${app.messages.tracing.slow-log-sample-rate:0.1}")
+    private double slowLogSampleRate;
+
+    public MessageTracer(MeterRegistry registry) {
+        this.persistStage = stageTimer(registry, "persist", "Controller entry to message insert");
+        this.publishStage = stageTimer(registry, "publish", "Message insert to broker publish");
+        this.fanoutStage = stageTimer(registry, "fanout", "Broker publish to frame sent on a subscriber session");
+        this.totalStage = stageTimer(registry, "total", "Controller entry to frame sent on a subscriber session");
+    }
+
+    /**
+     * Start a trace bound to the current thread; returns null when tracing is disabled
+     */
+    public MessageTrace start() {
+        if (!enabled) {
+            return null;
+        }
+        MessageTrace trace = new MessageTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public MessageTrace current() {
+        return CURRENT.get();
+    }
+
+    public void markPersisted() {
+        MessageTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.markPersisted();
+        }
+    }
+
+    public void markPublished() {
+        MessageTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.markPublished();
+        }
+    }
+
+    /**
+     * Record the request-thread stages and unbind the trace
+     */
+    public void end() {
+        MessageTrace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        CURRENT.remove();
+
+        if (trace.getPersistedNanos() != 0) {
+            record(persistStage, trace.getPersistedNanos() - trace.getReceivedNanos());
+            if (trace.getPublishedNanos() != 0) {
+                record(publishStage, trace.getPublishedNanos() - trace.getPersistedNanos());
+            }
+        }
+    }
+
+    /**
+     * Called once per subscriber session after its frame has been handed to the socket
+     */
+    public void delivered(MessageTrace trace, String sessionId) {
+        long now = System.nanoTime();
+        long totalNanos = now - trace.getReceivedNanos();
+        if (trace.getPublishedNanos() != 0) {
+            record(fanoutStage, now - trace.getPublishedNanos());
+        }
+        record(totalStage, totalNanos);
+
+        if (TimeUnit.NANOSECONDS.toMillis(totalNanos) >= slowThresholdMs
+                && ThreadLocalRandom.current().nextDouble() < slowLogSampleRate) {
+            log.warn("Slow message trace={} session={} total={}ms persist={}ms publish={}ms fanout={}ms",
+                    trace.getId(), sessionId, millis(totalNanos),
+                    millis(trace.getPersistedNanos(), trace.getReceivedNanos()),
+                    millis(trace.getPublishedNanos(), trace.getPersistedNanos()),
+                    millis(now, trace.getPublishedNanos()));
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage, String description) {
+        return Timer.builder("chat.message.stage")
+                .tag("stage", stage)
+                .description(description)
+                .register(registry);
+    }
+
+    private static void record(Timer timer, long nanos) {
+        timer.record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long millis(long end, long start) {
+        // A stage that never ran (e.g. no publish) is reported as -1
+        return end == 0 || start == 0 ? -1 : millis(end - start);
+    }
+}
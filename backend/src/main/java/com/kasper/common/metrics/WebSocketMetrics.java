@@ -0,0 +1,147 @@
+package com.kasper.common.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gauges for the STOMP layer: active sessions, subscriptions per destination group and the
+ * depth of the inbound/outbound channel queues. Destinations are reduced to a fixed set of
+ * groups: a room id in a metric tag would both list private rooms and grow one series per room.
+ */
+@Component
+public class WebSocketMetrics {
+
+    private final MeterRegistry registry;
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    // sessionId -> (subscriptionId -> destination group), needed because UNSUBSCRIBE/DISCONNECT carry no destination
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    private final Map<String, DestinationGauge> destinationGauges = new ConcurrentHashMap<>();
+
+    public WebSocketMetrics(MeterRegistry registry,
+                            @Qualifier("clientInboundChannelExecutor") TaskExecutor inboundExecutor,
+                            @Qualifier("clientOutboundChannelExecutor") TaskExecutor outboundExecutor) {
+        this.registry = registry;
+
+        Gauge.builder("chat.websocket.sessions", activeSessions, AtomicInteger::get)
+                .description("Connected STOMP sessions")
+                .register(registry);
+        registerQueueDepth("inbound", inboundExecutor);
+        registerQueueDepth("outbound", outboundExecutor);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        activeSessions.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        activeSessions.updateAndGet(count -> Math.max(0, count - 1));
+
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+
+        String previous = sessionSubscriptions
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destinationGroup(destination));
+        if (previous != null) {
+            decrement(previous);
+        }
+        increment(destinationGroup(destination));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    static String destinationGroup(String destination) {
+        if (destination.startsWith("/topic/chat/")) {
+            return destination.endsWith("/typing") ? "/topic/chat/typing" : "/topic/chat";
+        }
+        if (destination.startsWith("/user/queue/")) {
+            return "/user/queue";
+        }
+        return "other";
+    }
+
+    private void increment(String destination) {
+        destinationGauges.compute(destination, (key, gauge) -> {
+            DestinationGauge current = gauge != null ? gauge : new DestinationGauge(key);
+            current.count.incrementAndGet();
+            return current;
+        });
+    }
+
+    private void decrement(String destination) {
+        destinationGauges.computeIfPresent(destination, (key, gauge) -> {
+            if (gauge.count.decrementAndGet() > 0) {
+                return gauge;
+            }
+            // Drop the series once nobody listens
+            registry.remove(gauge.meter);
+            return null;
+        });
+    }
+
+    private void registerQueueDepth(String channel, TaskExecutor executor) {
+        // Only pool-backed executors have a queue; the virtual-thread mode blocks submitters instead
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            Gauge.builder("chat.websocket.queue.depth", pool, p -> p.getThreadPoolExecutor().getQueue().size())
+                    .tag("channel", channel)
+                    .description("Messages waiting for a channel thread")
+                    .register(registry);
+        }
+    }
+
+    private final class DestinationGauge {
+        private final AtomicInteger count = new AtomicInteger();
+        private final Gauge meter;
+
+        private DestinationGauge(String destination) {
+            this.meter = Gauge.builder("chat.websocket.subscriptions", count, AtomicInteger::get)
+                    .tag("destination", destination)
+                    .description("Active subscriptions per destination group")
+                    .register(registry);
+        }
+    }
+}
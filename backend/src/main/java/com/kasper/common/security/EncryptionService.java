@@ -1,5 +1,7 @@
 package com.kasper.common.security;
 
+import com.kasper.common.metrics.ChatMetrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -27,7 +29,11 @@ public class EncryptionService {
     
     private final SecretKey secretKey;
     
-    public EncryptionService() {
+    private final ChatMetrics chatMetrics;
+    
+    public EncryptionService(ChatMetrics chatMetrics) {
+        this.chatMetrics = chatMetrics;
+        
         // Generate a random key if none is provided in the configuration
         try {
             if (configuredKey == null || configuredKey.isEmpty()) {
@@ -45,6 +51,7 @@ public class EncryptionService {
     }
     
     public String encrypt(String plainText) {
+        Timer.Sample sample = Timer.start();
         try {
             byte[] iv = new byte[GCM_IV_LENGTH];
             SecureRandom random = new SecureRandom();
@@ -65,10 +72,13 @@ public class EncryptionService {
         } catch (Exception e) {
             log.error("Error encrypting message", e);
             throw new RuntimeException("Encryption failed", e);
+        } finally {
+            sample.stop(chatMetrics.encrypt());
         }
     }
     
     public String decrypt(String encryptedText) {
+        Timer.Sample sample = Timer.start();
         try {
             byte[] decoded = Base64.getDecoder().decode(encryptedText);
             
@@ -87,6 +97,8 @@ public class EncryptionService {
         } catch (Exception e) {
             log.error("Error decrypting message", e);
             throw new RuntimeException("Decryption failed", e);
+        } finally {
+            sample.stop(chatMetrics.decrypt());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.kasper.common.security;
+
+/**
+ * Thrown when the password hashing pool is saturated. Deliberately not an
+ * {@code AuthenticationException}, so it surfaces as "busy" rather than "bad credentials".
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,13 @@
 package com.kasper.common.security.jwt;
 
+import com.kasper.common.metrics.ChatMetrics;
 import com.kasper.common.security.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -12,6 +15,7 @@ import org.springframework.stereotype.Component;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
@@ -26,6 +30,9 @@ public class JwtUtils {
     @Value("${jwt.refresh.expiration}")
     private int jwtRefreshExpirationMs;
 
+    @Autowired
+    private ChatMetrics chatMetrics;
+
     public String generateAccessToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
@@ -40,7 +47,9 @@ public class JwtUtils {
     public String generateRefreshToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        // Random jti: two refresh tokens issued in the same second must not hash to the same row
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtRefreshExpirationMs))
@@ -58,6 +67,7 @@ public class JwtUtils {
     }
 
     public boolean validateJwtToken(String authToken) {
+        Timer.Sample sample = Timer.start();
         try {
             Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
             return true;
@@ -69,8 +79,11 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } finally {
+            sample.stop(chatMetrics.jwtValidation());
         }
 
+        chatMetrics.jwtRejected().increment();
         return false;
     }
 
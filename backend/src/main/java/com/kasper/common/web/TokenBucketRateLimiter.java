@@ -0,0 +1,79 @@
+package com.kasper.common.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory token buckets keyed by an arbitrary string (client IP, username, ...).
+ * Each key starts with {@code capacity} tokens and regains {@code refillPerMinute} tokens per minute.
+ * State is per instance, so with several backend nodes each node enforces its own limit.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final int capacity;
+    private final double tokensPerNano;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) refillPerMinute / NANOS_PER_MINUTE;
+    }
+
+    /**
+     * Take one token for {@code key}.
+     *
+     * @return 0 if a token was taken, otherwise the number of seconds until one is available
+     */
+    public long tryAcquire(String key) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, System.nanoTime()));
+        synchronized (bucket) {
+            long now = System.nanoTime();
+            bucket.refill(now, capacity, tokensPerNano);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            long nanosUntilToken = (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanosUntilToken) + 1);
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely; a full bucket is the same as no bucket
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> {
+            synchronized (bucket) {
+                bucket.refill(now, capacity, tokensPerNano);
+                return bucket.tokens >= capacity;
+            }
+        });
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+
+        private void refill(long now, int capacity, double tokensPerNano) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.kasper.common.websocket;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.server.standard.TomcatRequestUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handshake handler that lets permessage-deflate be negotiated only when compression is enabled.
+ * <p>
+ * Tomcat reports no installed extensions to Spring and negotiates permessage-deflate itself,
+ * from the {@code Sec-WebSocket-Extensions} header of the upgrade request, so the extension
+ * cannot be filtered out at Spring's level. With compression disabled the header is hidden
+ * from Tomcat instead, and the connection is upgraded without any extension.
+ */
+public class CompressionAwareHandshakeHandler extends DefaultHandshakeHandler {
+
+    public CompressionAwareHandshakeHandler(boolean compressionEnabled) {
+        super(new ExtensionAwareUpgradeStrategy(compressionEnabled));
+    }
+
+    private static final class ExtensionAwareUpgradeStrategy extends TomcatRequestUpgradeStrategy {
+
+        private final boolean compressionEnabled;
+
+        private ExtensionAwareUpgradeStrategy(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+        }
+
+        @Override
+        protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+            super.upgradeHttpToWebSocket(compressionEnabled ? request : new WithoutExtensions(request),
+                    response, endpointConfig, pathParams);
+        }
+    }
+
+    private static final class WithoutExtensions extends HttpServletRequestWrapper {
+
+        private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+
+        private WithoutExtensions(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(EXTENSIONS_HEADER::equalsIgnoreCase);
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.kasper.common.websocket;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * STOMP encoder that encodes the body part of a broadcast frame once per publish.
+ * <p>
+ * The simple broker hands the same payload array to every subscriber, so the
+ * {@code content-length} header, blank line, body and frame terminator are cached
+ * by payload identity. Each subscriber then only pays for its own small header
+ * block ({@code subscription}, {@code message-id}, ...) plus a single array copy.
+ * Frames without the {@link #PRE_ENCODED_HEADER} marker use the default encoding.
+ */
+public class PreEncodedStompEncoder extends StompEncoder {
+
+    public static final String PRE_ENCODED_HEADER = "preEncoded";
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte COLON = ':';
+
+    // byte[] keys use identity equality, and entries vanish once the broker drops the payload
+    private final Map<byte[], byte[]> frameTails = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public byte[] encode(Map<String, Object> headers, byte[] payload) {
+        if (!headers.containsKey(PRE_ENCODED_HEADER) || StompHeaderAccessor.getCommand(headers) != StompCommand.MESSAGE) {
+            return super.encode(headers, payload);
+        }
+
+        byte[] head = encodeHead(headers);
+        byte[] tail = frameTails.computeIfAbsent(payload, PreEncodedStompEncoder::encodeTail);
+
+        byte[] frame = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, frame, 0, head.length);
+        System.arraycopy(tail, 0, frame, head.length, tail.length);
+        return frame;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] encodeHead(Map<String, Object> headers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.writeBytes(StompCommand.MESSAGE.name().getBytes(StandardCharsets.UTF_8));
+        out.write(LINE_FEED);
+
+        Map<String, List<String>> nativeHeaders =
+                (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        if (nativeHeaders != null) {
+            for (Map.Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+                if (StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(entry.getKey())) {
+                    continue;
+                }
+                byte[] key = escape(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                for (String value : entry.getValue()) {
+                    out.writeBytes(key);
+                    out.write(COLON);
+                    out.writeBytes(escape(value).getBytes(StandardCharsets.UTF_8));
+                    out.write(LINE_FEED);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeTail(byte[] payload) {
+        byte[] contentLength = (StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER + ":" + payload.length)
+                .getBytes(StandardCharsets.UTF_8);
+
+        byte[] tail = new byte[contentLength.length + 2 + payload.length + 1];
+        System.arraycopy(contentLength, 0, tail, 0, contentLength.length);
+        tail[contentLength.length] = LINE_FEED;
+        tail[contentLength.length + 1] = LINE_FEED;
+        System.arraycopy(payload, 0, tail, contentLength.length + 2, payload.length);
+        tail[tail.length - 1] = 0;
+        return tail;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '\\' -> "\\\\";
+                case ':' -> "\\c";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+}
@@ -0,0 +1,41 @@
+package com.kasper.common.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps clients off the broker's /queue prefix. Per-session queues are resolved from
+ * /user/queue/... to /queue/...-user{sessionId}, so subscribing to (or sending to) the resolved
+ * name directly would read or forge another session's replies. Only the /user/queue/** form is
+ * allowed; the user destination resolver then pins it to the caller's own sessions.
+ */
+@Component
+public class UserQueueDestinationInterceptor implements ChannelInterceptor {
+
+    private static final String QUEUE_PREFIX = "/queue";
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if ((StompCommand.SUBSCRIBE.equals(command) || StompCommand.SEND.equals(command))
+                && isQueueDestination(accessor.getDestination())) {
+            throw new AccessDeniedException("Use /user" + QUEUE_PREFIX + "/** for per-session queues");
+        }
+        return message;
+    }
+
+    private static boolean isQueueDestination(String destination) {
+        return destination != null
+                && (destination.equals(QUEUE_PREFIX) || destination.startsWith(QUEUE_PREFIX + "/"));
+    }
+}
@@ -0,0 +1,170 @@
+package com.kasper.common.websocket;
+
+import com.kasper.common.dto.ReconnectHint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains STOMP sessions before the node shuts down, so a redeploy does not drop every client
+ * at the same instant.
+ * <p>
+ * When the context starts closing (and before the broker and the web server stop), new
+ * handshakes are refused and every connected session is sent a {@link ReconnectHint} with its
+ * own random delay within {@code reconnect-spread-ms}, which spreads the reconnects (and the
+ * catch-up syncs that follow them) across the other nodes. Shutdown then waits until the clients
+ * have left or {@code timeout-ms} has passed, and briefly for the outbound channel to flush its
+ * queued frames; whatever is still connected is closed by the broker's own shutdown.
+ */
+@Slf4j
+@Component
+public class WebSocketDrainer implements HandshakeInterceptor {
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long FLUSH_TIMEOUT_MS = 2000;
+
+    // Looked up when draining: the broker configuration that creates them depends on this bean
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ObjectProvider<TaskExecutor> outboundExecutor;
+    private final boolean enabled;
+    private final long reconnectSpreadMs;
+    private final long timeoutMs;
+
+    // sessionId -> user of every authenticated STOMP session
+    private final Map<String, Principal> sessions = new ConcurrentHashMap<>();
+
+    private volatile boolean draining;
+
+    public WebSocketDrainer(ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+                            @Qualifier("clientOutboundChannelExecutor") ObjectProvider<TaskExecutor> outboundExecutor,
+                            @Value("${app.websocket.drain.enabled:true}") boolean enabled,
+                            @Value("${app.websocket.drain.reconnect-spread-ms:10000}") long reconnectSpreadMs,
+                            @Value("${app.websocket.drain.timeout-ms:15000}") long timeoutMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.outboundExecutor = outboundExecutor;
+        this.enabled = enabled;
+        this.reconnectSpreadMs = reconnectSpreadMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null && event.getUser() != null) {
+            sessions.put(sessionId, event.getUser());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void drain() {
+        if (!enabled || draining) {
+            return;
+        }
+        draining = true;
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        int connected = sessions.size();
+        log.info("Draining {} WebSocket sessions, reconnects spread over {} ms", connected, reconnectSpreadMs);
+        sendReconnectHints();
+
+        awaitClientsLeft(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+        awaitOutboundFlushed(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS));
+        log.info("WebSocket drain finished: {} of {} sessions left on their own", connected - sessions.size(), connected);
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!draining) {
+            return true;
+        }
+        // Send the client to another node; its reconnect backoff adds its own jitter
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set("Retry-After", "1");
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private void sendReconnectHints() {
+        SimpMessagingTemplate template = messagingTemplate.getIfAvailable();
+        if (template == null) {
+            return;
+        }
+        sessions.forEach((sessionId, user) -> {
+            long delay = ThreadLocalRandom.current().nextLong(reconnectSpreadMs + 1);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setLeaveMutable(true);
+            try {
+                template.convertAndSendToUser(user.getName(), "/queue/reconnect",
+                        new ReconnectHint(delay), accessor.getMessageHeaders());
+            } catch (RuntimeException e) {
+                log.debug("Could not send reconnect hint to session {}", sessionId, e);
+            }
+        });
+    }
+
+    private void awaitClientsLeft(long deadline) {
+        while (!sessions.isEmpty() && System.nanoTime() < deadline) {
+            if (!pause()) {
+                return;
+            }
+        }
+    }
+
+    private void awaitOutboundFlushed(long deadline) {
+        // Only pool-backed executors have a queue to wait on; the virtual-thread mode has none
+        if (!(outboundExecutor.getIfAvailable() instanceof ThreadPoolTaskExecutor pool)) {
+            return;
+        }
+        while ((pool.getActiveCount() > 0 || !pool.getThreadPoolExecutor().getQueue().isEmpty())
+                && System.nanoTime() < deadline) {
+            if (!pause()) {
+                return;
+            }
+        }
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.kasper.file;
 
+import com.kasper.common.metrics.ChatMetrics;
 import com.kasper.file.model.FileAttachment;
 import com.kasper.file.repository.FileAttachmentRepository;
 import com.kasper.user.model.User;
@@ -25,6 +26,7 @@ public class FileService {
 
     private final FileAttachmentRepository fileAttachmentRepository;
     private final UserRepository userRepository;
+    private final ChatMetrics chatMetrics;
     
     @Value("${app.file.upload-dir:./uploads}")
     private String uploadDir;
@@ -50,6 +52,7 @@ public class FileService {
         // Save file to disk
         Path filePath = uploadPath.resolve(uniqueFilename);
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        chatMetrics.uploadBytes().record(file.getSize());
         
         // Store file metadata in database
         FileAttachment fileAttachment = FileAttachment.builder()
@@ -71,7 +74,9 @@ public class FileService {
                 .orElseThrow(() -> new EntityNotFoundException("File not found with ID: " + fileId));
         
         Path filePath = Paths.get(uploadDir).resolve(fileAttachment.getFilePath());
-        return Files.readAllBytes(filePath);
+        byte[] content = Files.readAllBytes(filePath);
+        chatMetrics.downloadBytes().record(content.length);
+        return content;
     }
     
     public String getFileContentType(UUID fileId) {
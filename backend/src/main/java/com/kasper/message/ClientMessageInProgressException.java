@@ -0,0 +1,14 @@
+package com.kasper.message;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a client message id is claimed but not yet linked to a stored message, so there
+ * is no original response to answer a retry with. The client should retry shortly.
+ */
+public class ClientMessageInProgressException extends RuntimeException {
+
+    public ClientMessageInProgressException(UUID clientMessageId) {
+        super("Message with client id " + clientMessageId + " is still being processed");
+    }
+}
@@ -0,0 +1,40 @@
+package com.kasper.message;
+
+import com.kasper.message.model.Message;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Inserts many messages with JDBC batching, bypassing the persistence context.
+ * Messages must already carry their id and created_at.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO public.messages (id, chat_room_id, sender_id, content, file_url, is_encrypted, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.messages.bulk.jdbc-batch-size:100}")
+    private int batchSize;
+
+    public void insert(List<Message> messages) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, batchSize, (ps, message) -> {
+            ps.setObject(1, message.getId());
+            ps.setObject(2, message.getChatRoom().getId());
+            ps.setObject(3, message.getSender().getId());
+            ps.setString(4, message.getContent());
+            ps.setString(5, message.getFileUrl());
+            ps.setBoolean(6, message.isEncrypted());
+            ps.setTimestamp(7, Timestamp.valueOf(message.getCreatedAt()));
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.kasper.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kasper.common.metrics.ChatMetrics;
+import com.kasper.common.metrics.MessageTrace;
+import com.kasper.common.metrics.MessageTracer;
+import com.kasper.common.websocket.PreEncodedStompEncoder;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Publishes payloads to broker destinations, serializing each payload exactly once.
+ * The encoded body is shared by every subscriber copy the broker creates, and the
+ * pre-encoded marker lets {@link PreEncodedStompEncoder} reuse its frame tail.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageBroadcaster {
+
+    private static final MimeType JSON = new MimeType("application", "json", StandardCharsets.UTF_8);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatMetrics chatMetrics;
+    private final MessageTracer messageTracer;
+
+    public void broadcast(String destination, Object payload) {
+        Timer.Sample sample = Timer.start();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing broadcast for {}", destination, e);
+            throw new IllegalStateException("Failed to serialize broadcast payload", e);
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(JSON);
+        accessor.setHeader(PreEncodedStompEncoder.PRE_ENCODED_HEADER, Boolean.TRUE);
+        MessageTrace trace = messageTracer.current();
+        if (trace != null) {
+            accessor.setHeader(MessageTrace.HEADER, trace);
+            accessor.setNativeHeader(MessageTrace.NATIVE_HEADER, trace.getId());
+        }
+        accessor.setLeaveMutable(true);
+        MessageHeaders headers = accessor.getMessageHeaders();
+
+        messageTracer.markPublished();
+        messagingTemplate.send(destination, MessageBuilder.createMessage(body, headers));
+        sample.stop(chatMetrics.messageBroadcast());
+    }
+}
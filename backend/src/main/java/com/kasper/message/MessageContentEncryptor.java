@@ -0,0 +1,106 @@
+package com.kasper.message;
+
+import com.kasper.common.security.EncryptionService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encrypts the content of a bulk send on a small dedicated pool with a bounded queue, so large
+ * batches use at most {@code threads} cores and never borrow the common ForkJoinPool. Slices the
+ * pool cannot take run on the calling thread, which keeps a saturated pool from failing sends.
+ */
+@Component
+public class MessageContentEncryptor implements DisposableBean {
+
+    // Smaller slices cost more in hand-off than they save
+    private static final int MIN_SLICE = 16;
+
+    private final EncryptionService encryptionService;
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+
+    public MessageContentEncryptor(EncryptionService encryptionService,
+                                   @Value("${app.messages.bulk.encryption-threads:0}") int threads,
+                                   @Value("${app.messages.bulk.encryption-queue-capacity:64}") int queueCapacity) {
+        this.encryptionService = encryptionService;
+        // 0 means half the available cores
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "message-encrypt-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Encrypt every plain text, keeping the order
+     */
+    public List<String> encryptAll(List<String> plainTexts) {
+        String[] encrypted = new String[plainTexts.size()];
+        int sliceSize = Math.max(MIN_SLICE, (plainTexts.size() + threads - 1) / threads);
+
+        List<Future<?>> slices = new ArrayList<>();
+        for (int from = 0; from < plainTexts.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(from + sliceSize, plainTexts.size());
+            FutureTask<Void> slice = new FutureTask<>(() -> {
+                for (int i = start; i < end; i++) {
+                    encrypted[i] = encryptionService.encrypt(plainTexts.get(i));
+                }
+            }, null);
+            // The last slice always runs here, so the caller works instead of waiting
+            if (end == plainTexts.size() || !offer(slice)) {
+                slice.run();
+            }
+            slices.add(slice);
+        }
+
+        for (Future<?> slice : slices) {
+            await(slice);
+        }
+        return List.of(encrypted);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private boolean offer(Runnable slice) {
+        try {
+            executor.execute(slice);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static void await(Future<?> slice) {
+        try {
+            slice.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while encrypting messages", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Message encryption failed", e.getCause());
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.kasper.message;
 
 import com.kasper.common.dto.MessageResponse;
+import com.kasper.common.metrics.MessageTrace;
+import com.kasper.common.metrics.MessageTracer;
+import com.kasper.message.dto.BulkMessageRequest;
 import com.kasper.message.dto.MessageRequest;
 import com.kasper.common.security.UserDetailsImpl;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,24 +30,65 @@ import java.util.UUID;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageTracer messageTracer;
     
     @PostMapping
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
-    public ResponseEntity<MessageResponse> createMessage(
+    public ResponseEntity<?> createMessage(
             @PathVariable UUID chatRoomId,
             @Valid @RequestBody MessageRequest request,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
         
-        // Ensure the sender ID in the request matches the authenticated user
+        MessageTrace trace = messageTracer.start();
+        try {
+            // Ensure the sender ID in the request matches the authenticated user
+            UUID userId = UUID.fromString(userDetails.getId().toString());
+            if (!userId.equals(request.getSenderId())) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Sender ID doesn't match authenticated user"));
+            }
+            
+            MessageResponse response = messageService.saveMessage(chatRoomId, request, userDetails.getUsername());
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+            if (trace != null) {
+                ok.header("X-Message-Trace-Id", trace.getId());
+            }
+            return ok.body(response);
+        } catch (ClientMessageInProgressException e) {
+            return inProgress(e);
+        } finally {
+            messageTracer.end();
+        }
+    }
+    
+    /**
+     * Send up to app.messages.bulk.max-size messages at once, for bots, bridges and imports
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
+    public ResponseEntity<?> createMessages(
+            @PathVariable UUID chatRoomId,
+            @Valid @RequestBody BulkMessageRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        
         UUID userId = UUID.fromString(userDetails.getId().toString());
         if (!userId.equals(request.getSenderId())) {
             return ResponseEntity.badRequest().body(new MessageResponse("Sender ID doesn't match authenticated user"));
         }
         
-        MessageResponse response = messageService.saveMessage(chatRoomId, request);
-        return ResponseEntity.ok(response);
+        try {
+            List<MessageResponse> responses = messageService.saveMessages(chatRoomId, request, userDetails.getUsername());
+            return ResponseEntity.ok(responses);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        } catch (ClientMessageInProgressException e) {
+            return inProgress(e);
+        }
     }
     
+    /**
+     * Every message still in the messages table, oldest first. Archived messages are not
+     * included; /history is the listing that reaches into the archive.
+     */
     @GetMapping
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
     public ResponseEntity<List<MessageResponse>> getChatMessages(
@@ -50,6 +99,9 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
     
+    /**
+     * Offset pages over the messages table only, newest first; archived messages are not included
+     */
     @GetMapping("/paginated")
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
     public ResponseEntity<Page<MessageResponse>> getChatMessagesPaginated(
@@ -61,6 +113,27 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
     
+    /**
+     * Cursor-based history: messages created before the given timestamp (defaults to now).
+     * Continues into the archive once the messages table runs out, so this is what clients
+     * should page through.
+     */
+    @GetMapping("/history")
+    @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
+    public ResponseEntity<Slice<MessageResponse>> getChatMessageHistory(
+            @PathVariable UUID chatRoomId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @PageableDefault(size = 20) Pageable pageable,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        
+        LocalDateTime cursor = before != null ? before : LocalDateTime.now();
+        Slice<MessageResponse> messages = messageService.getChatMessagesBefore(chatRoomId, cursor, pageable);
+        return ResponseEntity.ok(messages);
+    }
+    
+    /**
+     * Full-text search over the messages table; archived messages are not searchable
+     */
     @GetMapping("/search")
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
     public ResponseEntity<Page<MessageResponse>> searchMessages(
@@ -72,4 +145,10 @@ public class MessageController {
         Page<MessageResponse> messages = messageService.searchMessages(chatRoomId, query, pageable);
         return ResponseEntity.ok(messages);
     }
+    
+    private ResponseEntity<?> inProgress(ClientMessageInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse(e.getMessage()));
+    }
 }
\ No newline at end of file
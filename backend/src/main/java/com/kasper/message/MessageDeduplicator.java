@@ -0,0 +1,132 @@
+package com.kasper.message;
+
+import com.kasper.common.dto.MessageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Deduplication window for client message ids.
+ * <p>
+ * Recently answered ids are kept in a bounded in-memory map so a retry is served without touching
+ * the database. Behind it, the message_client_ids table holds a primary key on
+ * (sender_id, client_message_id): the first request claims the id, and a concurrent retry in another
+ * transaction blocks on that row until the first transaction commits and then reads the message it
+ * produced. A claim that finds the row but no message yet (a second claim inside the claiming
+ * transaction, or the window purged in between) raises {@link ClientMessageInProgressException}.
+ */
+@Slf4j
+@Component
+public class MessageDeduplicator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration window;
+    private final Map<String, CachedResponse> recent;
+
+    private record CachedResponse(MessageResponse response, long storedAtNanos) {
+    }
+
+    public MessageDeduplicator(JdbcTemplate jdbcTemplate,
+                               @Value("${app.messages.dedup.window-minutes:60}") long windowMinutes,
+                               @Value("${app.messages.dedup.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.window = Duration.ofMinutes(windowMinutes);
+        // Access-ordered LRU bounded by cache-size
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * The original response for a retried id, if it is still inside the in-memory window
+     */
+    public Optional<MessageResponse> findRecent(UUID senderId, UUID clientMessageId) {
+        CachedResponse cached = recent.get(key(senderId, clientMessageId));
+        if (cached == null || System.nanoTime() - cached.storedAtNanos() > window.toNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.response());
+    }
+
+    /**
+     * Claim the id for this sender. Returns empty when the claim succeeded, otherwise the id of
+     * the message already stored under it.
+     *
+     * @throws ClientMessageInProgressException if the id is claimed but its message is not stored yet
+     */
+    public Optional<UUID> claim(UUID senderId, UUID clientMessageId) {
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO public.message_client_ids (sender_id, client_message_id) VALUES (?, ?) " +
+                "ON CONFLICT (sender_id, client_message_id) DO NOTHING",
+                senderId, clientMessageId);
+        if (inserted == 1) {
+            return Optional.empty();
+        }
+
+        List<UUID> existing = jdbcTemplate.queryForList(
+                "SELECT message_id FROM public.message_client_ids WHERE sender_id = ? AND client_message_id = ?",
+                UUID.class, senderId, clientMessageId);
+        if (existing.isEmpty() || existing.get(0) == null) {
+            throw new ClientMessageInProgressException(clientMessageId);
+        }
+        return Optional.of(existing.get(0));
+    }
+
+    /**
+     * Link a claimed id to the stored message and remember the response once the transaction commits
+     */
+    public void complete(UUID senderId, UUID clientMessageId, MessageResponse response) {
+        jdbcTemplate.update(
+                "UPDATE public.message_client_ids SET message_id = ?, message_created_at = ? " +
+                "WHERE sender_id = ? AND client_message_id = ?",
+                response.getId(), Timestamp.valueOf(response.getCreatedAt()), senderId, clientMessageId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(senderId, clientMessageId, response);
+                }
+            });
+        } else {
+            remember(senderId, clientMessageId, response);
+        }
+    }
+
+    public void remember(UUID senderId, UUID clientMessageId, MessageResponse response) {
+        recent.put(key(senderId, clientMessageId), new CachedResponse(response, System.nanoTime()));
+    }
+
+    /**
+     * Runs every 10 minutes
+     */
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void purgeExpired() {
+        int deleted = jdbcTemplate.update("DELETE FROM public.message_client_ids WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(window)));
+        if (deleted > 0) {
+            log.debug("Purged {} client message ids outside the deduplication window", deleted);
+        }
+    }
+
+    private static String key(UUID senderId, UUID clientMessageId) {
+        return senderId + ":" + clientMessageId;
+    }
+}
@@ -0,0 +1,129 @@
+package com.kasper.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of the messages table.
+ * Upcoming partitions are created ahead of time so inserts never fall into the default
+ * partition, and partitions past the retention window are detached into the archive schema.
+ * <p>
+ * Every replica schedules the same maintenance, so each run takes a transaction-scoped advisory
+ * lock and is skipped when another node holds it. The startup run only creates missing
+ * partitions: draining rows out of the default partition locks the whole messages table, so that
+ * is left to the nightly run.
+ */
+@Component
+public class MessagePartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitionManager.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // pg_advisory lock key shared by all nodes ("msgpart")
+    private static final long MAINTENANCE_LOCK_KEY = 0x6d73677061727400L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.messages.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${app.messages.partitions.detach-after-months:0}")
+    private int detachAfterMonths;
+
+    // How long maintenance DDL may wait for a table lock before the run gives up
+    @Value("${app.messages.partitions.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            runExclusively(() -> createUpcomingPartitions(false));
+        } catch (DataAccessException e) {
+            // The nightly run retries; a node must not fail to start over partition upkeep
+            logger.warn("Startup partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Runs every day at 01:00
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void maintainPartitions() {
+        runExclusively(() -> {
+            createUpcomingPartitions(true);
+            if (detachAfterMonths > 0) {
+                detachOldPartitions();
+            }
+        });
+    }
+
+    private void runExclusively(Runnable maintenance) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                logger.debug("Partition maintenance is running on another node, skipping");
+                return;
+            }
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+            maintenance.run();
+        });
+    }
+
+    void createUpcomingPartitions(boolean drainDefault) {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = currentMonth.plusMonths(i);
+            String partition = jdbcTemplate.queryForObject(
+                    "SELECT public.create_messages_partition(?, ?)", String.class, Date.valueOf(month), drainDefault);
+            if (partition == null) {
+                logger.warn("Messages for {} are in the default partition; the nightly maintenance moves them", month);
+            } else {
+                logger.debug("Ensured messages partition {}", partition);
+            }
+        }
+    }
+
+    void detachOldPartitions() {
+        String oldestKept = "messages_p" + LocalDate.now().withDayOfMonth(1).minusMonths(detachAfterMonths).format(PARTITION_SUFFIX);
+
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "JOIN pg_namespace n ON n.oid = p.relnamespace " +
+                "WHERE n.nspname = 'public' AND p.relname = 'messages' AND c.relname LIKE 'messages\\_p%' " +
+                "ORDER BY c.relname",
+                String.class);
+
+        for (String partition : partitions) {
+            // Partition names sort chronologically (messages_pYYYY_MM)
+            if (partition.compareTo(oldestKept) >= 0) {
+                break;
+            }
+            logger.info("Detaching messages partition {} into the archive schema", partition);
+            jdbcTemplate.execute("ALTER TABLE public.messages DETACH PARTITION public.\"" + partition + "\"");
+            jdbcTemplate.execute("ALTER TABLE public.\"" + partition + "\" SET SCHEMA archive");
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package com.kasper.message;
 
-import com.kasper.chat.ChatService;
 import com.kasper.chat.model.ChatRoom;
 import com.kasper.common.dto.MessageResponse;
+import com.kasper.common.metrics.ChatMetrics;
+import com.kasper.common.metrics.MessageTracer;
 import com.kasper.common.security.EncryptionService;
+import com.kasper.message.archive.ArchivedMessage;
+import com.kasper.message.archive.MessageSegmentStore;
+import com.kasper.message.dto.BulkMessageRequest;
 import com.kasper.message.dto.MessageRequest;
 import com.kasper.message.dto.WebSocketMessage;
 import com.kasper.message.model.Message;
 import com.kasper.chat.repository.ChatRoomRepository;
 import com.kasper.message.repository.MessageRepository;
+import com.kasper.user.UserProfileCache;
 import com.kasper.user.model.User;
 import com.kasper.user.repository.UserRepository;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -31,48 +44,193 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final ChatRoomRepository chatRoomRepository;
     private final UserRepository userRepository;
-    private final ChatService chatService;
     private final EncryptionService encryptionService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageBroadcaster messageBroadcaster;
+    private final MessageSegmentStore messageSegmentStore;
+    private final ChatMetrics chatMetrics;
+    private final MessageTracer messageTracer;
+    private final MessageDeduplicator messageDeduplicator;
+    private final MessageBatchWriter messageBatchWriter;
+    private final RoomActivityRecorder roomActivityRecorder;
+    private final UserProfileCache userProfileCache;
+    private final MessageContentEncryptor messageContentEncryptor;
     
+    @Value("${app.messages.bulk.max-size:500}")
+    private int maxBulkSize;
+    
+    /**
+     * Store and broadcast a message.
+     * The caller must already have checked that the sender is a member of the room (the
+     * controller does so through @PreAuthorize), so the room and sender are only referenced,
+     * never loaded: the write path is a single INSERT and a bad id fails on the foreign keys.
+     */
     @Transactional
-    public MessageResponse saveMessage(UUID chatRoomId, MessageRequest messageRequest) {
-        // Validate chat room and sender
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
-                .orElseThrow(() -> new EntityNotFoundException("Chat room not found with ID: " + chatRoomId));
+    public MessageResponse saveMessage(UUID chatRoomId, MessageRequest messageRequest, String senderUsername) {
+        Timer.Sample sample = Timer.start();
+        try {
+            // A retried send is answered with the original response, without a second row or broadcast
+            UUID clientMessageId = messageRequest.getClientMessageId();
+            if (clientMessageId != null) {
+                Optional<MessageResponse> recent = messageDeduplicator.findRecent(messageRequest.getSenderId(), clientMessageId);
+                if (recent.isPresent()) {
+                    return recent.get();
+                }
+            }
+            
+            UUID senderId = messageRequest.getSenderId();
+            ChatRoom chatRoom = chatRoomRepository.getReferenceById(chatRoomId);
+            User sender = userRepository.getReferenceById(senderId);
+            
+            if (clientMessageId != null) {
+                Optional<MessageResponse> original = claimOrFindOriginal(senderId, clientMessageId);
+                if (original.isPresent()) {
+                    return original.get();
+                }
+            }
+            
+            // Process message content (encrypt if needed)
+            String processedContent = messageRequest.getMessage();
+            if (messageRequest.isEncrypted()) {
+                processedContent = encryptionService.encrypt(processedContent);
+            }
+            
+            // Create and save the message
+            Message message = Message.builder()
+                    .chatRoom(chatRoom)
+                    .sender(sender)
+                    .content(processedContent)
+                    .fileUrl(messageRequest.getFileUrl())
+                    .isEncrypted(messageRequest.isEncrypted())
+                    .build();
+            
+            // Flush so the INSERT (and any foreign key violation) happens here rather than at commit
+            message = messageRepository.saveAndFlush(message);
+            messageTracer.markPersisted();
+            roomActivityRecorder.record(chatRoomId, message.getId(), messageRequest.getMessage(), messageRequest.isEncrypted(),
+                    senderId, message.getCreatedAt(), 1);
+            
+            // Create response from the plain text and the principal's username, without touching the proxies
+            MessageResponse response = mapToMessageResponse(message, messageRequest.getMessage(), senderUsername);
+            response.setClientMessageId(clientMessageId);
+            if (clientMessageId != null) {
+                messageDeduplicator.complete(senderId, clientMessageId, response);
+            }
+            
+            // Send WebSocket message to subscribers
+            sendWebSocketMessage(chatRoomId, message.getId(), senderId, senderUsername, messageRequest.getMessage(),
+                    messageRequest.getFileUrl(), message.getCreatedAt(), clientMessageId);
+            
+            return response;
+        } finally {
+            // Deduplicated answers are timed too
+            sample.stop(chatMetrics.messageSave());
+        }
+    }
+    
+    /**
+     * Save several messages from one sender in a single transaction.
+     * Membership is checked once by the caller; content is encrypted on a bounded pool, rows are
+     * inserted with JDBC batching and broadcasts are published in request order. An item that
+     * repeats an earlier item's client message id is answered with that item's response.
+     */
+    @Transactional
+    public List<MessageResponse> saveMessages(UUID chatRoomId, BulkMessageRequest request, String senderUsername) {
+        List<BulkMessageRequest.Item> items = request.getMessages();
+        if (items.size() > maxBulkSize) {
+            throw new IllegalArgumentException("At most " + maxBulkSize + " messages can be sent at once");
+        }
         
-        User sender = userRepository.findById(messageRequest.getSenderId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + messageRequest.getSenderId()));
+        UUID senderId = request.getSenderId();
+        User sender = userRepository.getReferenceById(senderId);
+        ChatRoom chatRoom = chatRoomRepository.getReferenceById(chatRoomId);
         
-        // Check if user is a member of the chat room
-        if (!chatService.isUserInChatRoom(sender.getId(), chatRoomId)) {
-            throw new IllegalStateException("User is not a member of this chat room");
+        // Retried items are answered with their original message and not stored again; a repeated
+        // id is only claimed once, since a second claim in this transaction finds no message yet
+        MessageResponse[] responses = new MessageResponse[items.size()];
+        Map<UUID, Integer> firstWithClientId = new HashMap<>();
+        int[] copyOf = new int[items.size()];
+        Arrays.fill(copyOf, -1);
+        for (int i = 0; i < items.size(); i++) {
+            UUID clientMessageId = items.get(i).getClientMessageId();
+            if (clientMessageId == null) {
+                continue;
+            }
+            Integer first = firstWithClientId.putIfAbsent(clientMessageId, i);
+            if (first != null) {
+                copyOf[i] = first;
+                continue;
+            }
+            responses[i] = messageDeduplicator.findRecent(senderId, clientMessageId)
+                    .or(() -> claimOrFindOriginal(senderId, clientMessageId))
+                    .orElse(null);
         }
         
-        // Process message content (encrypt if needed)
-        String processedContent = messageRequest.getMessage();
-        if (messageRequest.isEncrypted()) {
-            processedContent = encryptionService.encrypt(processedContent);
+        List<Integer> toEncrypt = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (responses[i] == null && copyOf[i] < 0 && items.get(i).isEncrypted()) {
+                toEncrypt.add(i);
+            }
+        }
+        List<String> encrypted = messageContentEncryptor.encryptAll(
+                toEncrypt.stream().map(i -> items.get(i).getMessage()).toList());
+        String[] storedContent = new String[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            storedContent[i] = items.get(i).getMessage();
+        }
+        for (int j = 0; j < toEncrypt.size(); j++) {
+            storedContent[toEncrypt.get(j)] = encrypted.get(j);
         }
         
-        // Create and save the message
-        Message message = Message.builder()
-                .chatRoom(chatRoom)
-                .sender(sender)
-                .content(processedContent)
-                .fileUrl(messageRequest.getFileUrl())
-                .isEncrypted(messageRequest.isEncrypted())
-                .build();
-        
-        message = messageRepository.save(message);
+        // Distinct, increasing timestamps keep the request order in history
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Message> messages = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (responses[i] != null || copyOf[i] >= 0) {
+                continue;
+            }
+            BulkMessageRequest.Item item = items.get(i);
+            messages.add(Message.builder()
+                    .id(UUID.randomUUID())
+                    .chatRoom(chatRoom)
+                    .sender(sender)
+                    .content(storedContent[i])
+                    .fileUrl(item.getFileUrl())
+                    .isEncrypted(item.isEncrypted())
+                    .createdAt(createdAt.plusNanos(i * 1_000L))
+                    .build());
+            positions.add(i);
+        }
         
-        // Create response
-        MessageResponse response = mapToMessageResponse(message);
+        messageBatchWriter.insert(messages);
+        if (!messages.isEmpty()) {
+            Message newest = messages.get(messages.size() - 1);
+            BulkMessageRequest.Item newestItem = items.get(positions.get(positions.size() - 1));
+            roomActivityRecorder.record(chatRoomId, newest.getId(), newestItem.getMessage(), newestItem.isEncrypted(),
+                    senderId, newest.getCreatedAt(), messages.size());
+        }
         
-        // Send WebSocket message to subscribers
-        sendWebSocketMessage(chatRoomId, sender, messageRequest.getMessage(), messageRequest.getFileUrl(), message.getCreatedAt());
+        for (int j = 0; j < messages.size(); j++) {
+            Message message = messages.get(j);
+            BulkMessageRequest.Item item = items.get(positions.get(j));
+            
+            MessageResponse response = mapToMessageResponse(message, item.getMessage(), senderUsername);
+            response.setClientMessageId(item.getClientMessageId());
+            if (item.getClientMessageId() != null) {
+                messageDeduplicator.complete(senderId, item.getClientMessageId(), response);
+            }
+            responses[positions.get(j)] = response;
+            
+            sendWebSocketMessage(chatRoomId, message.getId(), senderId, senderUsername, item.getMessage(),
+                    item.getFileUrl(), message.getCreatedAt(), item.getClientMessageId());
+        }
         
-        return response;
+        for (int i = 0; i < items.size(); i++) {
+            if (copyOf[i] >= 0) {
+                responses[i] = responses[copyOf[i]];
+            }
+        }
+        return Arrays.asList(responses);
     }
     
     public List<MessageResponse> getChatMessages(UUID chatRoomId) {
@@ -95,12 +253,39 @@ public class MessageService {
         return messages.map(this::mapToMessageResponse);
     }
     
+    /**
+     * Messages older than the given cursor, newest first.
+     * Once the cursor runs past the messages table the page is filled from the archive.
+     */
+    public Slice<MessageResponse> getChatMessagesBefore(UUID chatRoomId, LocalDateTime before, Pageable pageable) {
+        Slice<Message> messages = messageRepository.findHistoryBefore(chatRoomId, before, pageable);
+        if (messages.hasNext()) {
+            return messages.map(this::mapToMessageResponse);
+        }
+        
+        List<MessageResponse> content = new ArrayList<>(pageable.getPageSize());
+        messages.forEach(message -> content.add(mapToMessageResponse(message)));
+        
+        // Archived messages are all older than the ones still in the table
+        int remaining = pageable.getPageSize() - content.size();
+        LocalDateTime archiveCursor = content.isEmpty() ? before : content.get(content.size() - 1).getCreatedAt();
+        List<ArchivedMessage> archived = messageSegmentStore.readBefore(chatRoomId, archiveCursor, remaining + 1);
+        
+        boolean hasNext = archived.size() > remaining;
+        archived.stream()
+                .limit(remaining)
+                .map(this::mapToMessageResponse)
+                .forEach(content::add);
+        
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+    
     public Page<MessageResponse> searchMessages(UUID chatRoomId, String query, Pageable pageable) {
         Page<Message> messages = messageRepository.searchMessages(chatRoomId, query, pageable);
         return messages.map(this::mapToMessageResponse);
     }
     
-    private MessageResponse mapToMessageResponse(Message message) {
+    MessageResponse mapToMessageResponse(Message message) {
         String content = message.getContent();
         
         // Decrypt if needed
@@ -108,12 +293,39 @@ public class MessageService {
             content = encryptionService.decrypt(content);
         }
         
+        // The sender is a lazy reference; its name comes from the cache rather than the users table
+        return mapToMessageResponse(message, content, userProfileCache.getUsername(message.getSender().getId()));
+    }
+    
+    private MessageResponse mapToMessageResponse(Message message, String content, String senderUsername) {
         return MessageResponse.builder()
                 .id(message.getId())
                 .chatRoomId(message.getChatRoom().getId())
                 .sender(MessageResponse.UserInfo.builder()
                         .id(message.getSender().getId())
-                        .username(message.getSender().getUsername())
+                        .username(senderUsername)
+                        .build())
+                .message(content)
+                .fileUrl(message.getFileUrl())
+                .createdAt(message.getCreatedAt())
+                .encrypted(message.isEncrypted())
+                .build();
+    }
+    
+    private MessageResponse mapToMessageResponse(ArchivedMessage message) {
+        String content = message.getContent();
+        
+        // Decrypt if needed
+        if (message.isEncrypted()) {
+            content = encryptionService.decrypt(content);
+        }
+        
+        return MessageResponse.builder()
+                .id(message.getId())
+                .chatRoomId(message.getChatRoomId())
+                .sender(MessageResponse.UserInfo.builder()
+                        .id(message.getSenderId())
+                        .username(message.getSenderUsername())
                         .build())
                 .message(content)
                 .fileUrl(message.getFileUrl())
@@ -122,17 +334,37 @@ public class MessageService {
                 .build();
     }
     
-    private void sendWebSocketMessage(UUID chatRoomId, User sender, String message, String fileUrl, LocalDateTime timestamp) {
+    /**
+     * Claim a client message id, or return the message already stored under it
+     */
+    private Optional<MessageResponse> claimOrFindOriginal(UUID senderId, UUID clientMessageId) {
+        Optional<UUID> existingId = messageDeduplicator.claim(senderId, clientMessageId);
+        if (existingId.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        MessageResponse original = messageRepository.findById(existingId.get())
+                .map(this::mapToMessageResponse)
+                .orElseThrow(() -> new EntityNotFoundException("Message not found with ID: " + existingId.get()));
+        original.setClientMessageId(clientMessageId);
+        messageDeduplicator.remember(senderId, clientMessageId, original);
+        return Optional.of(original);
+    }
+    
+    private void sendWebSocketMessage(UUID chatRoomId, UUID messageId, UUID senderId, String senderUsername, String message,
+                                      String fileUrl, LocalDateTime timestamp, UUID clientMessageId) {
         WebSocketMessage webSocketMessage = WebSocketMessage.builder()
+                .messageId(messageId)
                 .chatRoomId(chatRoomId)
-                .senderId(sender.getId())
-                .senderUsername(sender.getUsername())
+                .senderId(senderId)
+                .senderUsername(senderUsername)
                 .message(message)
                 .fileUrl(fileUrl)
                 .createdAt(timestamp)
                 .type(WebSocketMessage.MessageType.CHAT)
+                .clientMessageId(clientMessageId)
                 .build();
         
-        messagingTemplate.convertAndSend("/topic/chat/" + chatRoomId, webSocketMessage);
+        messageBroadcaster.broadcast("/topic/chat/" + chatRoomId, webSocketMessage);
     }
 }
\ No newline at end of file
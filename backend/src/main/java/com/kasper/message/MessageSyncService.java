@@ -0,0 +1,330 @@
+package com.kasper.message;
+
+import com.kasper.chat.repository.ChatRoomMemberRepository;
+import com.kasper.common.dto.MessageResponse;
+import com.kasper.message.dto.SyncAck;
+import com.kasper.message.dto.SyncChunk;
+import com.kasper.message.dto.SyncRequest;
+import com.kasper.message.model.Message;
+import com.kasper.message.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Catch-up after a reconnect: streams the messages a client missed, room by room, in chunks
+ * to {@code /user/queue/sync}.
+ * <p>
+ * Flow control is credit based. A sync starts with a few credits, every chunk sent spends one,
+ * and the client grants more through {@code /app/sync/ack} once it has processed them, so a
+ * slow client never has more than {@code max-credits} chunks queued on its socket. At most one
+ * chunk per sync is being read at a time, and all reads run on a small pool with a bounded
+ * queue: when a deploy reconnects every client at once, the excess syncs are told to retry after
+ * a jittered delay instead of piling up against the messages table.
+ */
+@Slf4j
+@Component
+public class MessageSyncService implements DisposableBean {
+
+    private final MessageRepository messageRepository;
+    private final ChatRoomMemberRepository chatRoomMemberRepository;
+    private final MessageService messageService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final int chunkSize;
+    private final int maxRooms;
+    private final int maxMessagesPerRoom;
+    private final int initialCredits;
+    private final int maxCredits;
+    private final long retryAfterMs;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, SyncSession> sessions = new ConcurrentHashMap<>();
+
+    private final Map<SyncChunk.Type, Counter> chunks = new EnumMap<>(SyncChunk.Type.class);
+
+    public MessageSyncService(MessageRepository messageRepository, ChatRoomMemberRepository chatRoomMemberRepository,
+                              MessageService messageService, SimpMessagingTemplate messagingTemplate, MeterRegistry registry,
+                              @Value("${app.messages.sync.threads:4}") int threads,
+                              @Value("${app.messages.sync.queue-capacity:1000}") int queueCapacity,
+                              @Value("${app.messages.sync.chunk-size:100}") int chunkSize,
+                              @Value("${app.messages.sync.max-rooms:200}") int maxRooms,
+                              @Value("${app.messages.sync.max-messages-per-room:1000}") int maxMessagesPerRoom,
+                              @Value("${app.messages.sync.initial-credits:2}") int initialCredits,
+                              @Value("${app.messages.sync.max-credits:8}") int maxCredits,
+                              @Value("${app.messages.sync.retry-after-ms:2000}") long retryAfterMs) {
+        this.messageRepository = messageRepository;
+        this.chatRoomMemberRepository = chatRoomMemberRepository;
+        this.messageService = messageService;
+        this.messagingTemplate = messagingTemplate;
+        this.chunkSize = chunkSize;
+        this.maxRooms = maxRooms;
+        this.maxMessagesPerRoom = maxMessagesPerRoom;
+        this.initialCredits = initialCredits;
+        this.maxCredits = maxCredits;
+        this.retryAfterMs = retryAfterMs;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "message-sync-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        for (SyncChunk.Type type : SyncChunk.Type.values()) {
+            chunks.put(type, Counter.builder("chat.sync.chunks")
+                    .description("Catch-up sync frames sent, by type")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        Gauge.builder("chat.sync.active", sessions, Map::size)
+                .description("Catch-up syncs in progress")
+                .register(registry);
+        Gauge.builder("chat.sync.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Catch-up chunk reads waiting for a sync thread")
+                .register(registry);
+    }
+
+    /**
+     * Start a sync for the STOMP session, replacing any sync it already had running
+     */
+    public void start(String sessionId, String username, UUID userId, SyncRequest request) {
+        SyncSession session = new SyncSession(UUID.randomUUID(), sessionId, username, initialCredits);
+        SyncSession previous = sessions.put(sessionId, session);
+        if (previous != null) {
+            previous.cancel();
+        }
+        session.inFlight = true;
+        submit(session, () -> {
+            prepare(session, userId, request.getRooms());
+            synchronized (session) {
+                session.inFlight = false;
+            }
+            pump(session);
+        });
+    }
+
+    public void acknowledge(String sessionId, SyncAck ack) {
+        SyncSession session = sessions.get(sessionId);
+        if (session == null || !session.syncId.equals(ack.getSyncId())) {
+            return;
+        }
+        synchronized (session) {
+            session.credits = Math.min(maxCredits, session.credits + Math.max(1, ack.getCredits()));
+        }
+        pump(session);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SyncSession session = sessions.remove(event.getSessionId());
+        if (session != null) {
+            session.cancel();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void prepare(SyncSession session, UUID userId, List<SyncRequest.RoomCursor> requested) {
+        if (requested == null || requested.isEmpty()) {
+            return;
+        }
+        List<UUID> checked = requested.subList(0, Math.min(requested.size(), maxRooms)).stream()
+                .map(SyncRequest.RoomCursor::getChatRoomId)
+                .toList();
+        Set<UUID> memberOf = new HashSet<>(chatRoomMemberRepository.findMemberChatRoomIds(userId, checked));
+
+        for (int i = 0; i < requested.size(); i++) {
+            SyncRequest.RoomCursor room = requested.get(i);
+            if (i >= maxRooms) {
+                // Not streamed; the client reloads these like any other reset room
+                session.rooms.add(new Cursor(room.getChatRoomId(), null, true));
+            } else if (memberOf.contains(room.getChatRoomId())) {
+                session.rooms.add(new Cursor(room.getChatRoomId(), room.getLastSeenMessageId(),
+                        room.getLastSeenMessageId() == null));
+            }
+        }
+    }
+
+    private void pump(SyncSession session) {
+        boolean complete;
+        synchronized (session) {
+            if (session.cancelled || session.inFlight || session.credits <= 0) {
+                return;
+            }
+            complete = session.rooms.isEmpty();
+            if (complete) {
+                session.cancelled = true;
+            } else {
+                session.inFlight = true;
+            }
+        }
+
+        if (complete) {
+            sessions.remove(session.sessionId, session);
+            send(session, SyncChunk.builder().type(SyncChunk.Type.COMPLETE).build());
+            return;
+        }
+
+        submit(session, () -> {
+            SyncChunk chunk = nextChunk(session);
+            synchronized (session) {
+                session.inFlight = false;
+                if (session.cancelled) {
+                    return;
+                }
+                session.credits--;
+            }
+            send(session, chunk);
+            pump(session);
+        });
+    }
+
+    /**
+     * Read the next chunk of the room at the head of the queue. Only the single in-flight task
+     * of a sync touches its cursors.
+     */
+    private SyncChunk nextChunk(SyncSession session) {
+        Cursor cursor = session.rooms.peekFirst();
+        if (!cursor.reset && cursor.afterCreatedAt == null) {
+            LocalDateTime createdAt = messageRepository.findCreatedAt(cursor.chatRoomId, cursor.afterId).orElse(null);
+            // Unknown or archived last seen message, or more missed than is worth streaming
+            cursor.reset = createdAt == null || messageRepository.countCatchUpAfter(
+                    cursor.chatRoomId, createdAt, cursor.afterId, maxMessagesPerRoom + 1) > maxMessagesPerRoom;
+            cursor.afterCreatedAt = createdAt;
+        }
+        if (cursor.reset) {
+            session.rooms.pollFirst();
+            return SyncChunk.builder()
+                    .type(SyncChunk.Type.RESET)
+                    .chatRoomId(cursor.chatRoomId)
+                    .build();
+        }
+
+        List<Message> page = messageRepository.findCatchUpAfter(
+                cursor.chatRoomId, cursor.afterCreatedAt, cursor.afterId, chunkSize + 1);
+        boolean roomComplete = page.size() <= chunkSize;
+        List<Message> messages = roomComplete ? page : page.subList(0, chunkSize);
+        if (!messages.isEmpty()) {
+            Message last = messages.get(messages.size() - 1);
+            cursor.afterCreatedAt = last.getCreatedAt();
+            cursor.afterId = last.getId();
+        }
+        if (roomComplete) {
+            session.rooms.pollFirst();
+        }
+
+        List<MessageResponse> responses = messages.stream()
+                .map(messageService::mapToMessageResponse)
+                .toList();
+        return SyncChunk.builder()
+                .type(SyncChunk.Type.MESSAGES)
+                .chatRoomId(cursor.chatRoomId)
+                .messages(responses)
+                .roomComplete(roomComplete)
+                .build();
+    }
+
+    private void submit(SyncSession session, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Catch-up sync {} failed", session.syncId, e);
+                    retryLater(session);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            retryLater(session);
+        }
+    }
+
+    private void retryLater(SyncSession session) {
+        session.cancel();
+        sessions.remove(session.sessionId, session);
+        // Jitter spreads the retries of clients that were turned away together
+        long delay = retryAfterMs + ThreadLocalRandom.current().nextLong(retryAfterMs + 1);
+        send(session, SyncChunk.builder()
+                .type(SyncChunk.Type.RETRY)
+                .retryAfterMs(delay)
+                .build());
+    }
+
+    private void send(SyncSession session, SyncChunk chunk) {
+        chunk.setSyncId(session.syncId);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(session.sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(session.username, "/queue/sync", chunk, accessor.getMessageHeaders());
+        chunks.get(chunk.getType()).increment();
+    }
+
+    private static final class SyncSession {
+
+        private final UUID syncId;
+        private final String sessionId;
+        private final String username;
+        private final Deque<Cursor> rooms = new ArrayDeque<>();
+
+        // Guarded by the session's monitor
+        private int credits;
+        private boolean inFlight;
+        private boolean cancelled;
+
+        private SyncSession(UUID syncId, String sessionId, String username, int credits) {
+            this.syncId = syncId;
+            this.sessionId = sessionId;
+            this.username = username;
+            this.credits = credits;
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static final class Cursor {
+
+        private final UUID chatRoomId;
+        private UUID afterId;
+        private LocalDateTime afterCreatedAt;
+        private boolean reset;
+
+        private Cursor(UUID chatRoomId, UUID afterId, boolean reset) {
+            this.chatRoomId = chatRoomId;
+            this.afterId = afterId;
+            this.reset = reset;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.kasper.message;
+
+import com.kasper.chat.repository.ChatRoomActivityRepository;
+import com.kasper.chat.repository.ChatRoomActivityRepository.ActivityUpdate;
+import com.kasper.common.security.EncryptionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps chat_room_activity up to date from the message write path.
+ * <p>
+ * Each committed send is merged into one pending entry per room (count added up, newest message
+ * kept), and the pending entries are written with one batched upsert per flush. A busy room
+ * therefore costs one row update per flush interval rather than one per message, and message
+ * inserts never wait on the summary row's lock. Pending counts are lost if the process dies
+ * between flushes, so a nightly pass resets message_count from the messages table for every room
+ * that has been quiet long enough to have nothing pending. The archiver decrements the count as
+ * it deletes rows, so message_count is the number of messages still in the table.
+ */
+@Slf4j
+@Component
+public class RoomActivityRecorder {
+
+    private final ChatRoomActivityRepository activityRepository;
+    private final EncryptionService encryptionService;
+    private final int previewLength;
+    private final int reconcileBatchSize;
+    private final long reconcileQuietMinutes;
+    private final Timer flushTimer;
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private record Pending(UUID messageId, String preview, boolean encrypted, UUID senderId,
+                           LocalDateTime createdAt, long count) {
+
+        Pending merge(Pending other) {
+            Pending newest = other.createdAt().isBefore(createdAt) ? this : other;
+            return new Pending(newest.messageId(), newest.preview(), newest.encrypted(), newest.senderId(),
+                    newest.createdAt(), count + other.count());
+        }
+    }
+
+    public RoomActivityRecorder(ChatRoomActivityRepository activityRepository, EncryptionService encryptionService,
+                                MeterRegistry registry,
+                                @Value("${app.chat.activity.preview-length:100}") int previewLength,
+                                @Value("${app.chat.activity.reconcile-batch-size:500}") int reconcileBatchSize,
+                                @Value("${app.chat.activity.reconcile-quiet-minutes:10}") long reconcileQuietMinutes) {
+        this.activityRepository = activityRepository;
+        this.encryptionService = encryptionService;
+        this.previewLength = previewLength;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.reconcileQuietMinutes = reconcileQuietMinutes;
+        this.flushTimer = Timer.builder("chat.rooms.activity.flush")
+                .description("Time to write pending room activity to chat_room_activity")
+                .register(registry);
+        Gauge.builder("chat.rooms.activity.pending", pending, Map::size)
+                .description("Rooms with activity not yet written to chat_room_activity")
+                .register(registry);
+    }
+
+    /**
+     * Record {@code count} new messages in a room, the newest of which is given.
+     * Applied after the surrounding transaction commits, so rolled back sends are not counted.
+     */
+    public void record(UUID chatRoomId, UUID messageId, String text, boolean encrypted, UUID senderId,
+                       LocalDateTime createdAt, long count) {
+        String preview = text != null && text.length() > previewLength ? text.substring(0, previewLength) : text;
+        Pending activity = new Pending(messageId, preview, encrypted, senderId, createdAt, count);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(chatRoomId, activity, Pending::merge);
+                }
+            });
+        } else {
+            pending.merge(chatRoomId, activity, Pending::merge);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.activity.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Pending> drained = new HashMap<>();
+        for (UUID chatRoomId : pending.keySet()) {
+            Pending activity = pending.remove(chatRoomId);
+            if (activity != null) {
+                drained.put(chatRoomId, activity);
+            }
+        }
+
+        try {
+            List<ActivityUpdate> updates = new ArrayList<>(drained.size());
+            drained.forEach((chatRoomId, activity) -> updates.add(toUpdate(chatRoomId, activity)));
+            flushTimer.record(() -> activityRepository.upsert(updates));
+        } catch (DataIntegrityViolationException e) {
+            // A room (or sender) was deleted in the meantime; retrying would fail the same way
+            log.warn("Dropping activity for {} rooms: {}", drained.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            // Put the entries back so the next flush retries them
+            drained.forEach((chatRoomId, activity) -> pending.merge(chatRoomId, activity, Pending::merge));
+            log.warn("Failed to write activity for {} rooms, will retry: {}", drained.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Runs every day at 03:15
+     */
+    @Scheduled(cron = "0 15 3 * * ?")
+    public void reconcileMessageCounts() {
+        LocalDateTime quietSince = LocalDateTime.now().minusMinutes(reconcileQuietMinutes);
+        // The all-zero id sorts first in Postgres, which compares uuids as unsigned bytes
+        UUID after = new UUID(0L, 0L);
+        int corrected = 0;
+        while (true) {
+            List<UUID> batch = activityRepository.findChatRoomIdsAfter(after, reconcileBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            corrected += activityRepository.reconcileMessageCounts(batch, quietSince);
+            after = batch.get(batch.size() - 1);
+        }
+        if (corrected > 0) {
+            log.info("Corrected the message count of {} rooms", corrected);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private ActivityUpdate toUpdate(UUID chatRoomId, Pending activity) {
+        String preview = activity.preview();
+        // Only the newest message per room is encrypted here, not every message sent in the interval
+        if (preview != null && activity.encrypted()) {
+            preview = encryptionService.encrypt(preview);
+        }
+        return new ActivityUpdate(chatRoomId, activity.messageId(), preview, activity.encrypted(),
+                activity.senderId(), activity.createdAt(), activity.count());
+    }
+}
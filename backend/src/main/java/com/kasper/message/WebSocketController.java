@@ -1,5 +1,7 @@
 package com.kasper.message;
 
+import com.kasper.message.dto.SyncAck;
+import com.kasper.message.dto.SyncRequest;
 import com.kasper.message.dto.WebSocketMessage;
 import com.kasper.common.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +20,8 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class WebSocketController {
 
+    private final MessageSyncService messageSyncService;
+
     @MessageMapping("/chat/{chatRoomId}")
     @SendTo("/topic/chat/{chatRoomId}")
     @PreAuthorize("@chatService.isUserInChatRoom(#userDetails.id, #chatRoomId)")
@@ -46,4 +50,23 @@ public class WebSocketController {
         message.setType(WebSocketMessage.MessageType.TYPING);
         return message;
     }
+    
+    /**
+     * Catch-up after a reconnect; the missed messages arrive on /user/queue/sync
+     */
+    @MessageMapping("/sync")
+    @PreAuthorize("isAuthenticated()")
+    public void sync(
+            @Payload SyncRequest request,
+            SimpMessageHeaderAccessor headerAccessor,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        
+        messageSyncService.start(headerAccessor.getSessionId(), userDetails.getUsername(), userDetails.getId(), request);
+    }
+    
+    @MessageMapping("/sync/ack")
+    @PreAuthorize("isAuthenticated()")
+    public void acknowledgeSync(@Payload SyncAck ack, SimpMessageHeaderAccessor headerAccessor) {
+        messageSyncService.acknowledge(headerAccessor.getSessionId(), ack);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.kasper.message.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A message moved out of the messages table into a room's segment files.
+ * Content is kept exactly as stored in the database (still encrypted when {@code encrypted}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedMessage {
+
+    private UUID id;
+    private UUID chatRoomId;
+    private UUID senderId;
+    private String senderUsername;
+    private String content;
+    private String fileUrl;
+    private boolean encrypted;
+    private LocalDateTime createdAt;
+}
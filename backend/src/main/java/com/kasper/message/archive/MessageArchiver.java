@@ -0,0 +1,168 @@
+package com.kasper.message.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Moves messages older than the configured age out of the messages table into per-room
+ * segment files. Rows are deleted only after their block is durably in the archive, and
+ * every run first deletes rows already covered by the archive, so an interrupted run
+ * never leaves a message both archived and live.
+ * <p>
+ * A run holds a session-level advisory lock on one pooled connection, so only one node archives
+ * at a time. The segment files are only shared when {@code app.messages.archive.dir} is on storage
+ * every node mounts; on node-local disk archived history is readable only where it was written.
+ */
+@Component
+public class MessageArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiver.class);
+
+    // pg_advisory lock key shared by all nodes ("msgarch")
+    private static final long ARCHIVE_LOCK_KEY = 0x6d73676172636800L;
+
+    private static final RowMapper<ArchivedMessage> ROW_MAPPER = (rs, rowNum) -> ArchivedMessage.builder()
+            .id(rs.getObject("id", UUID.class))
+            .chatRoomId(rs.getObject("chat_room_id", UUID.class))
+            .senderId(rs.getObject("sender_id", UUID.class))
+            .senderUsername(rs.getString("username"))
+            .content(rs.getString("content"))
+            .fileUrl(rs.getString("file_url"))
+            .encrypted(rs.getBoolean("is_encrypted"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageSegmentStore segmentStore;
+
+    @Value("${app.messages.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.messages.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${app.messages.archive.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Scheduled task to archive cold messages
+     * Runs every hour at half past
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void archiveColdMessages() {
+        if (!enabled) {
+            return;
+        }
+        // The lock lives as long as this connection's session, so a crashed node releases it
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                logger.info("Message archival is running on another node, skipping");
+                return null;
+            }
+            try {
+                archiveExclusively();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return null;
+        });
+    }
+
+    private void archiveExclusively() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        logger.info("Starting archival of messages created before {}", cutoff);
+
+        List<UUID> chatRoomIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT chat_room_id FROM messages WHERE created_at < ?", UUID.class, Timestamp.valueOf(cutoff));
+
+        long archived = 0;
+        for (UUID chatRoomId : chatRoomIds) {
+            try {
+                archived += archiveChatRoom(chatRoomId, cutoff);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to archive messages of chat room {}", chatRoomId, e);
+            }
+        }
+        logger.info("Completed archival: {} messages from {} chat rooms", archived, chatRoomIds.size());
+    }
+
+    long archiveChatRoom(UUID chatRoomId, LocalDateTime cutoff) throws IOException {
+        Optional<MessageSegmentStore.Position> position = segmentStore.lastArchivedPosition(chatRoomId);
+        position.ifPresent(p -> deleteArchived(chatRoomId, p));
+
+        long archived = 0;
+        while (true) {
+            List<ArchivedMessage> batch = selectBatch(chatRoomId, cutoff, position.orElse(null));
+            if (batch.isEmpty()) {
+                break;
+            }
+            segmentStore.append(chatRoomId, batch);
+
+            ArchivedMessage last = batch.get(batch.size() - 1);
+            position = Optional.of(new MessageSegmentStore.Position(last.getCreatedAt(), last.getId()));
+            deleteArchived(chatRoomId, position.get());
+            archived += batch.size();
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ARCHIVE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private List<ArchivedMessage> selectBatch(UUID chatRoomId, LocalDateTime cutoff, MessageSegmentStore.Position after) {
+        String sql = "SELECT m.id, m.chat_room_id, m.sender_id, u.username, m.content, m.file_url, m.is_encrypted, m.created_at " +
+                "FROM messages m JOIN users u ON u.id = m.sender_id " +
+                "WHERE m.chat_room_id = ? AND m.created_at < ? " +
+                (after != null ? "AND (m.created_at, m.id) > (?, ?) " : "") +
+                "ORDER BY m.created_at, m.id LIMIT ?";
+
+        if (after == null) {
+            return jdbcTemplate.query(sql, ROW_MAPPER, chatRoomId, Timestamp.valueOf(cutoff), batchSize);
+        }
+        return jdbcTemplate.query(sql, ROW_MAPPER, chatRoomId, Timestamp.valueOf(cutoff),
+                Timestamp.valueOf(after.createdAt()), after.id(), batchSize);
+    }
+
+    private void deleteArchived(UUID chatRoomId, MessageSegmentStore.Position upTo) {
+        Timestamp createdAt = Timestamp.valueOf(upTo.createdAt());
+        // The plain created_at bound lets Postgres prune partitions; the room's message count
+        // drops in the same statement, so it cannot drift from the rows actually removed
+        jdbcTemplate.update("WITH deleted AS (" +
+                        "DELETE FROM messages WHERE chat_room_id = ? AND created_at <= ? AND (created_at, id) <= (?, ?) " +
+                        "RETURNING 1) " +
+                        "UPDATE chat_room_activity SET message_count = GREATEST(message_count - (SELECT COUNT(*) FROM deleted), 0) " +
+                        "WHERE chat_room_id = ?",
+                chatRoomId, createdAt, createdAt, upTo.id(), chatRoomId);
+    }
+}
@@ -0,0 +1,351 @@
+package com.kasper.message.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only, compressed archive of cold messages, one directory per chat room.
+ * <p>
+ * A room directory holds numbered segment files ({@code segment-000001.seg}). A segment is a
+ * sequence of deflate-compressed blocks of messages in (created_at, id) order, and each segment
+ * has an offset index ({@code .idx}) with one fixed-size entry per block: time range, offset,
+ * lengths, message count and the id of the block's last message. The index is written after
+ * the block is on disk, so readers only ever see complete blocks. Blocks are read with positional
+ * reads, so no file handle or mapping is kept open between reads.
+ * <p>
+ * The archive is only readable where its directory is: with more than one node,
+ * {@code app.messages.archive.dir} has to be on storage that every node mounts.
+ */
+@Component
+public class MessageSegmentStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    // firstMicros, lastMicros, offset, compressedLength, rawLength, count, lastId
+    private static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4 + 4 + 4 + 16;
+
+    @Value("${app.messages.archive.dir:./archive}")
+    private String archiveDir;
+
+    @Value("${app.messages.archive.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    @Value("${app.messages.archive.block-size:256}")
+    private int blockSize;
+
+    /**
+     * Position of the newest archived message of a room
+     */
+    public record Position(LocalDateTime createdAt, UUID id) {
+    }
+
+    private record IndexEntry(long firstMicros, long lastMicros, long offset, int compressedLength,
+                              int rawLength, int count, UUID lastId) {
+    }
+
+    /**
+     * Append messages (ascending by created_at, id, all newer than the current position) to the room's archive
+     */
+    public synchronized void append(UUID chatRoomId, List<ArchivedMessage> messages) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Path roomDir = roomDir(chatRoomId);
+        Files.createDirectories(roomDir);
+
+        List<Path> segments = listSegments(roomDir);
+        Path segment = segments.isEmpty() ? segmentPath(roomDir, 1) : segments.get(segments.size() - 1);
+
+        for (int from = 0; from < messages.size(); from += blockSize) {
+            List<ArchivedMessage> block = messages.subList(from, Math.min(from + blockSize, messages.size()));
+            byte[] raw = encode(block);
+            byte[] compressed = compress(raw);
+
+            if (Files.exists(segment) && Files.size(segment) > 0 && Files.size(segment) + compressed.length > segmentMaxBytes) {
+                segment = segmentPath(roomDir, segmentNumber(segment) + 1);
+            }
+
+            long offset;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                offset = channel.size();
+                channel.position(offset);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                channel.force(false);
+            }
+
+            ArchivedMessage first = block.get(0);
+            ArchivedMessage last = block.get(block.size() - 1);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE)
+                    .putLong(toMicros(first.getCreatedAt()))
+                    .putLong(toMicros(last.getCreatedAt()))
+                    .putLong(offset)
+                    .putInt(compressed.length)
+                    .putInt(raw.length)
+                    .putInt(block.size())
+                    .putLong(last.getId().getMostSignificantBits())
+                    .putLong(last.getId().getLeastSignificantBits())
+                    .flip();
+
+            try (FileChannel index = FileChannel.open(indexPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Drop a torn entry left behind by a crash so entries stay aligned
+                long aligned = index.size() - index.size() % INDEX_ENTRY_SIZE;
+                index.truncate(aligned);
+                index.position(aligned);
+                writeFully(index, entry);
+                index.force(false);
+            }
+        }
+    }
+
+    public Optional<Position> lastArchivedPosition(UUID chatRoomId) {
+        try {
+            List<Path> segments = listSegments(roomDir(chatRoomId));
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                List<IndexEntry> entries = readIndex(segments.get(i));
+                if (!entries.isEmpty()) {
+                    IndexEntry last = entries.get(entries.size() - 1);
+                    return Optional.of(new Position(fromMicros(last.lastMicros()), last.lastId()));
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive index for chat room " + chatRoomId, e);
+        }
+    }
+
+    /**
+     * Archived messages created before the cursor, newest first
+     */
+    public List<ArchivedMessage> readBefore(UUID chatRoomId, LocalDateTime before, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        long beforeMicros = toMicros(before);
+        List<ArchivedMessage> result = new ArrayList<>(limit);
+
+        try {
+            List<Path> segments = listSegments(roomDir(chatRoomId));
+            for (int s = segments.size() - 1; s >= 0 && result.size() < limit; s--) {
+                Path segment = segments.get(s);
+                List<IndexEntry> entries = readIndex(segment);
+
+                for (int i = lastEntryStartingBefore(entries, beforeMicros); i >= 0 && result.size() < limit; i--) {
+                    List<ArchivedMessage> block = readBlock(segment, entries.get(i), chatRoomId);
+                    for (int m = block.size() - 1; m >= 0 && result.size() < limit; m--) {
+                        ArchivedMessage message = block.get(m);
+                        if (toMicros(message.getCreatedAt()) < beforeMicros) {
+                            result.add(message);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive for chat room " + chatRoomId, e);
+        }
+        return result;
+    }
+
+    // Binary search over the ascending firstMicros column of the offset index
+    private int lastEntryStartingBefore(List<IndexEntry> entries, long beforeMicros) {
+        int low = 0;
+        int high = entries.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).firstMicros() < beforeMicros) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private List<ArchivedMessage> readBlock(Path segment, IndexEntry entry, UUID chatRoomId) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(entry.compressedLength());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (compressed.hasRemaining()) {
+                if (channel.read(compressed, entry.offset() + compressed.position()) < 0) {
+                    throw new IOException("Archive segment " + segment + " ends inside the block at offset " + entry.offset());
+                }
+            }
+        }
+        compressed.flip();
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[entry.rawLength()];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+            return decode(raw, entry.count(), chatRoomId);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block in " + segment + " at offset " + entry.offset(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private List<IndexEntry> readIndex(Path segment) throws IOException {
+        Path index = indexPath(segment);
+        if (!Files.exists(index)) {
+            return Collections.emptyList();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(index));
+        int count = buffer.remaining() / INDEX_ENTRY_SIZE;
+        List<IndexEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new IndexEntry(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), new UUID(buffer.getLong(), buffer.getLong())));
+        }
+        return entries;
+    }
+
+    private byte[] encode(List<ArchivedMessage> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (ArchivedMessage message : block) {
+            out.writeLong(message.getId().getMostSignificantBits());
+            out.writeLong(message.getId().getLeastSignificantBits());
+            out.writeLong(message.getSenderId().getMostSignificantBits());
+            out.writeLong(message.getSenderId().getLeastSignificantBits());
+            writeString(out, message.getSenderUsername());
+            writeString(out, message.getContent());
+            writeString(out, message.getFileUrl());
+            out.writeBoolean(message.isEncrypted());
+            out.writeLong(toMicros(message.getCreatedAt()));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private List<ArchivedMessage> decode(byte[] raw, int count, UUID chatRoomId) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<ArchivedMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(ArchivedMessage.builder()
+                    .id(new UUID(in.readLong(), in.readLong()))
+                    .chatRoomId(chatRoomId)
+                    .senderId(new UUID(in.readLong(), in.readLong()))
+                    .senderUsername(readString(in))
+                    .content(readString(in))
+                    .fileUrl(readString(in))
+                    .encrypted(in.readBoolean())
+                    .createdAt(fromMicros(in.readLong()))
+                    .build());
+        }
+        return messages;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private List<Path> listSegments(Path roomDir) throws IOException {
+        if (!Files.isDirectory(roomDir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(roomDir)) {
+            // Zero-padded numbers sort in segment order
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path roomDir(UUID chatRoomId) {
+        return Paths.get(archiveDir).resolve(chatRoomId.toString());
+    }
+
+    private static Path segmentPath(Path roomDir, int number) {
+        return roomDir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,33 @@
+package com.kasper.message.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class BulkMessageRequest {
+    
+    @NotNull(message = "Sender ID is required")
+    private UUID senderId;
+    
+    @NotEmpty(message = "At least one message is required")
+    private List<@Valid Item> messages;
+    
+    @Data
+    public static class Item {
+        
+        @NotBlank(message = "Message content is required")
+        private String message;
+        
+        private String fileUrl;
+        
+        private boolean encrypted;
+        
+        private UUID clientMessageId;
+    }
+}
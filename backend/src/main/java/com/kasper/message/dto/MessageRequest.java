@@ -18,4 +18,7 @@ public class MessageRequest {
     private String fileUrl;
     
     private boolean encrypted;
+    
+    // Optional, generated by the client; a retry with the same id returns the original message
+    private UUID clientMessageId;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.kasper.message.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Sent to {@code /app/sync/ack} once the client has processed chunks, granting the server
+ * credit for that many more
+ */
+@Data
+public class SyncAck {
+    
+    private UUID syncId;
+    
+    private int credits = 1;
+}
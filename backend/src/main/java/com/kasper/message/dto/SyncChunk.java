@@ -0,0 +1,39 @@
+package com.kasper.message.dto;
+
+import com.kasper.common.dto.MessageResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One frame of a catch-up sync, delivered to {@code /user/queue/sync}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChunk {
+    
+    private UUID syncId;
+    private Type type;
+    private UUID chatRoomId;
+    private List<MessageResponse> messages;
+    // Last MESSAGES chunk of the room
+    private boolean roomComplete;
+    private Long retryAfterMs;
+    
+    public enum Type {
+        // Missed messages of one room, oldest first
+        MESSAGES,
+        // Too much was missed (or the last seen message is gone): reload the room through the history API
+        RESET,
+        // Every requested room has been caught up
+        COMPLETE,
+        // The server is busy: send the sync request again after retryAfterMs
+        RETRY
+    }
+}
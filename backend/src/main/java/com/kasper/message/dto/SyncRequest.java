@@ -0,0 +1,29 @@
+package com.kasper.message.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sent to {@code /app/sync} after a reconnect: the last message the client has seen in each room
+ */
+@Data
+public class SyncRequest {
+    
+    @NotEmpty(message = "At least one room is required")
+    private List<@Valid RoomCursor> rooms;
+    
+    @Data
+    public static class RoomCursor {
+        
+        @NotNull(message = "Chat room ID is required")
+        private UUID chatRoomId;
+        
+        // Null when the client has no messages of the room yet
+        private UUID lastSeenMessageId;
+    }
+}
@@ -14,6 +14,8 @@ import java.util.UUID;
 @AllArgsConstructor
 public class WebSocketMessage {
     
+    // Id of the stored message; the last one a client saw is its catch-up cursor after a reconnect
+    private UUID messageId;
     private UUID chatRoomId;
     private UUID senderId;
     private String senderUsername;
@@ -21,6 +23,7 @@ public class WebSocketMessage {
     private String fileUrl;
     private LocalDateTime createdAt;
     private MessageType type;
+    private UUID clientMessageId;
     
     public enum MessageType {
         CHAT,
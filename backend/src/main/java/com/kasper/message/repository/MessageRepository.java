@@ -4,12 +4,15 @@ import com.kasper.chat.model.ChatRoom;
 import com.kasper.message.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -19,6 +22,38 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
     
     Page<Message> findByChatRoomOrderByCreatedAtDesc(ChatRoom chatRoom, Pageable pageable);
     
+    // Keyset history page: the created_at bound prunes newer partitions and lets Postgres
+    // walk the remaining ones newest-first, stopping once the page is full
+    @Query("SELECT m FROM Message m WHERE m.chatRoom.id = :chatRoomId AND m.createdAt < :before " +
+           "ORDER BY m.createdAt DESC")
+    Slice<Message> findHistoryBefore(@Param("chatRoomId") UUID chatRoomId,
+                                     @Param("before") LocalDateTime before,
+                                     Pageable pageable);
+    
+    @Query("SELECT m.createdAt FROM Message m WHERE m.id = :id AND m.chatRoom.id = :chatRoomId")
+    Optional<LocalDateTime> findCreatedAt(@Param("chatRoomId") UUID chatRoomId, @Param("id") UUID id);
+    
+    // Catch-up page: messages after a (created_at, id) cursor, oldest first. The plain created_at
+    // bound is what prunes older partitions; the row comparison orders messages sharing a timestamp
+    @Query(value = "SELECT * FROM messages WHERE chat_room_id = :chatRoomId AND created_at >= :afterCreatedAt " +
+                   "AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+                   "ORDER BY created_at, id LIMIT :limit",
+           nativeQuery = true)
+    List<Message> findCatchUpAfter(@Param("chatRoomId") UUID chatRoomId,
+                                   @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                   @Param("afterId") UUID afterId,
+                                   @Param("limit") int limit);
+    
+    // Number of messages after the cursor, counted only up to the limit
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM messages WHERE chat_room_id = :chatRoomId " +
+                   "AND created_at >= :afterCreatedAt AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+                   "LIMIT :limit) AS missed",
+           nativeQuery = true)
+    long countCatchUpAfter(@Param("chatRoomId") UUID chatRoomId,
+                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                           @Param("afterId") UUID afterId,
+                           @Param("limit") int limit);
+    
     @Query(value = "SELECT * FROM messages WHERE chat_room_id = :chatRoomId AND " +
                   "search_vector @@ plainto_tsquery(:query) " +
                   "ORDER BY created_at DESC", 
@@ -0,0 +1,36 @@
+package com.kasper.user;
+
+import com.kasper.user.dto.UserProfileResponse;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+public class UserController {
+
+    private final UserProfileCache userProfileCache;
+
+    /**
+     * Public profile with branding, served from memory after the first view
+     */
+    @GetMapping("/{userId}/profile")
+    public ResponseEntity<UserProfileResponse> getProfile(@PathVariable UUID userId) {
+        try {
+            return ResponseEntity.ok(UserProfileResponse.builder()
+                    .id(userId)
+                    .username(userProfileCache.getUsername(userId))
+                    .branding(userProfileCache.getBranding(userId).orElse(null))
+                    .build());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
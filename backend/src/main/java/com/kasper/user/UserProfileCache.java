@@ -0,0 +1,86 @@
+package com.kasper.user;
+
+import com.kasper.user.VersionedCache.Versioned;
+import com.kasper.user.dto.BrandingResponse;
+import com.kasper.user.dto.UserSummary;
+import com.kasper.user.model.Branding;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.BrandingRepository;
+import com.kasper.user.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cache of user summaries and branding by user id, so message mapping and profile
+ * rendering do not read users and branding rows over and over. Entries are invalidated by
+ * {@link UserProfileCacheListener} when a row's version changes.
+ */
+@Component
+public class UserProfileCache {
+
+    // Branding rows start at version 0, so "no branding" must rank below any real row
+    private static final long ABSENT_VERSION = -1;
+
+    private final UserRepository userRepository;
+    private final BrandingRepository brandingRepository;
+    private final VersionedCache<UUID, UserSummary> users;
+    private final VersionedCache<UUID, Optional<BrandingResponse>> brandings;
+
+    public UserProfileCache(UserRepository userRepository, BrandingRepository brandingRepository, MeterRegistry registry,
+                            @Value("${app.users.cache.max-entries:10000}") int maxEntries,
+                            @Value("${app.users.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.brandingRepository = brandingRepository;
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.users = new VersionedCache<>("users", maxEntries, ttlNanos, registry);
+        this.brandings = new VersionedCache<>("branding", maxEntries, ttlNanos, registry);
+    }
+
+    public UserSummary getUser(UUID userId) {
+        return users.get(userId, id -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + id));
+            return new Versioned<>(UserSummary.builder()
+                    .id(user.getId())
+                    .username(user.getUsername())
+                    .build(), versionOf(user.getVersion()));
+        });
+    }
+
+    public String getUsername(UUID userId) {
+        return getUser(userId).getUsername();
+    }
+
+    public Optional<BrandingResponse> getBranding(UUID userId) {
+        return brandings.get(userId, id -> brandingRepository.findByUserId(id)
+                .map(branding -> new Versioned<>(Optional.of(toResponse(branding)), versionOf(branding.getVersion())))
+                .orElseGet(() -> new Versioned<>(Optional.empty(), ABSENT_VERSION)));
+    }
+
+    public void invalidateUser(UUID userId, long version) {
+        users.invalidate(userId, version);
+    }
+
+    public void invalidateBranding(UUID userId, long version) {
+        brandings.invalidate(userId, version);
+    }
+
+    private static BrandingResponse toResponse(Branding branding) {
+        return BrandingResponse.builder()
+                .primaryColor(branding.getPrimaryColor())
+                .secondaryColor(branding.getSecondaryColor())
+                .logoUrl(branding.getLogoUrl())
+                .customCss(branding.getCustomCSS())
+                .build();
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0 : version;
+    }
+}
@@ -0,0 +1,72 @@
+package com.kasper.user;
+
+import com.kasper.user.model.Branding;
+import com.kasper.user.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * JPA listener on {@link User} and {@link Branding} that invalidates {@link UserProfileCache}
+ * once the writing transaction commits. Created by Hibernate through Spring, so the cache is
+ * looked up lazily to keep it out of the EntityManagerFactory's dependencies.
+ */
+public class UserProfileCacheListener {
+
+    private final ObjectProvider<UserProfileCache> cacheProvider;
+
+    public UserProfileCacheListener(ObjectProvider<UserProfileCache> cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Object entity) {
+        if (entity instanceof User user) {
+            afterCommit(UserProfileCache::invalidateUser, user.getId(), versionOf(user.getVersion()));
+        } else if (entity instanceof Branding branding) {
+            afterCommit(UserProfileCache::invalidateBranding, branding.getUser().getId(), versionOf(branding.getVersion()));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        // A removed row never becomes cacheable again
+        if (entity instanceof User user) {
+            afterCommit(UserProfileCache::invalidateUser, user.getId(), Long.MAX_VALUE);
+        } else if (entity instanceof Branding branding) {
+            afterCommit(UserProfileCache::invalidateBranding, branding.getUser().getId(), Long.MAX_VALUE);
+        }
+    }
+
+    private void afterCommit(Invalidation invalidation, UUID userId, long version) {
+        UserProfileCache cache = cacheProvider.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.apply(cache, userId, version);
+                }
+            });
+        } else {
+            invalidation.apply(cache, userId, version);
+        }
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    @FunctionalInterface
+    private interface Invalidation {
+        void apply(UserProfileCache cache, UUID userId, long version);
+    }
+}
@@ -0,0 +1,96 @@
+package com.kasper.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU whose entries carry the version of the row they were read from.
+ * <p>
+ * Invalidation leaves a tombstone holding the new version, and a loaded value is only stored if
+ * its version is at least the one already recorded. A read that started before an update
+ * committed can therefore never put the old row back after the update evicted it. Entries also
+ * expire after a TTL, which bounds staleness for updates made by other nodes.
+ */
+final class VersionedCache<K, V> {
+
+    /**
+     * A loaded value and the version of the row it came from
+     */
+    record Versioned<V>(V value, long version) {
+    }
+
+    private record Entry<V>(V value, long version, boolean present, long loadedAtNanos) {
+    }
+
+    private final Map<K, Entry<V>> entries;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+
+    VersionedCache(String name, int maxEntries, long ttlNanos, MeterRegistry registry) {
+        this.ttlNanos = ttlNanos;
+        // Access-ordered LRU bounded by maxEntries; compound updates synchronize on the map
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.hits = requestCounter(registry, name, "hit");
+        this.misses = requestCounter(registry, name, "miss");
+        Gauge.builder("chat.cache.size", entries, Map::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    V get(K key, Function<K, Versioned<V>> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.present() && now - entry.loadedAtNanos() < ttlNanos) {
+            hits.increment();
+            return entry.value();
+        }
+
+        misses.increment();
+        Versioned<V> loaded = loader.apply(key);
+        synchronized (entries) {
+            Entry<V> current = entries.get(key);
+            if (current == null || loaded.version() >= current.version()) {
+                entries.put(key, new Entry<>(loaded.value(), loaded.version(), true, now));
+            }
+        }
+        return loaded.value();
+    }
+
+    /**
+     * Drop the entry for a row that changed to {@code version}, unless a read of that version
+     * (or a newer one) is already cached
+     */
+    void invalidate(K key, long version) {
+        synchronized (entries) {
+            Entry<V> current = entries.get(key);
+            if (current != null && current.present() && current.version() >= version) {
+                return;
+            }
+            long floor = current == null ? version : Math.max(current.version(), version);
+            entries.put(key, new Entry<>(null, floor, false, System.nanoTime()));
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String name, String result) {
+        return Counter.builder("chat.cache.requests")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+}
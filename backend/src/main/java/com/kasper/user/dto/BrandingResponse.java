@@ -0,0 +1,13 @@
+package com.kasper.user.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class BrandingResponse {
+    String primaryColor;
+    String secondaryColor;
+    String logoUrl;
+    String customCss;
+}
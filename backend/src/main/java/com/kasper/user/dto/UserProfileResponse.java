@@ -0,0 +1,15 @@
+package com.kasper.user.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+@Builder
+public class UserProfileResponse {
+    UUID id;
+    String username;
+    // Null when the user has no branding
+    BrandingResponse branding;
+}
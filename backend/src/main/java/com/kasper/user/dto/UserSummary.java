@@ -0,0 +1,16 @@
+package com.kasper.user.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * The public part of a user, as rendered next to messages and on profiles
+ */
+@Value
+@Builder
+public class UserSummary {
+    UUID id;
+    String username;
+}
@@ -1,10 +1,13 @@
 package com.kasper.user.model;
 
+import com.kasper.user.UserProfileCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -13,6 +16,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "branding")
+@EntityListeners(UserProfileCacheListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,8 +27,10 @@ public class Branding {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
     @Column(name = "primary_color")
@@ -46,4 +52,8 @@ public class Branding {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
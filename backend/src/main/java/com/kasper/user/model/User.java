@@ -1,5 +1,6 @@
 package com.kasper.user.model;
 
+import com.kasper.user.UserProfileCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,6 +14,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserProfileCacheListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -48,4 +50,8 @@ public class User {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
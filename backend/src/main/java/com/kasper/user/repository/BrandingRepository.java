@@ -13,5 +13,7 @@ public interface BrandingRepository extends JpaRepository<Branding, UUID> {
     
     Optional<Branding> findByUser(User user);
     
+    Optional<Branding> findByUserId(UUID userId);
+    
     boolean existsByUser(User user);
 }
\ No newline at end of file
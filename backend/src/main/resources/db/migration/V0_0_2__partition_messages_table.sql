@@ -0,0 +1,85 @@
+-- Convert messages to native range partitioning by month on created_at
+
+-- message_reactions.message_id cannot reference a partitioned table without the partition key,
+-- so the foreign key is dropped (message_reactions is not used by the application yet)
+ALTER TABLE public.message_reactions DROP CONSTRAINT IF EXISTS message_reactions_message_id_fkey;
+
+ALTER TABLE public.messages RENAME TO messages_legacy;
+ALTER TABLE public.messages_legacy RENAME CONSTRAINT messages_pkey TO messages_legacy_pkey;
+DROP TRIGGER IF EXISTS messages_search_vector_update ON public.messages_legacy;
+
+-- Partitioned Messages Table (primary key must contain the partition key)
+CREATE TABLE public.messages (
+     id UUID NOT NULL,
+     chat_room_id UUID NOT NULL REFERENCES public.chat_rooms(id),
+     sender_id UUID NOT NULL REFERENCES public.users(id),
+     content TEXT,
+     file_url VARCHAR(255),
+     is_encrypted BOOLEAN DEFAULT FALSE,
+     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+     search_vector TSVECTOR,
+     PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catch-all for rows outside every monthly partition; drained when a matching partition is created
+CREATE TABLE public.messages_default PARTITION OF public.messages DEFAULT;
+
+-- Create (idempotently) the partition holding the month that contains p_month
+CREATE OR REPLACE FUNCTION public.create_messages_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    range_start DATE := date_trunc('month', p_month)::DATE;
+    range_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'messages_p' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass('public.' || partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end) THEN
+        -- Move rows that landed in the default partition into the new one
+        ALTER TABLE public.messages DETACH PARTITION public.messages_default;
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.messages FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_end);
+        INSERT INTO public.messages
+            SELECT * FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end;
+        DELETE FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end;
+        ALTER TABLE public.messages ATTACH PARTITION public.messages_default DEFAULT;
+    ELSE
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.messages FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_end);
+    END IF;
+
+    RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
+
+-- Partitions for existing data plus the next three months
+DO $$
+DECLARE
+    month_cursor DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM public.messages_legacy), CURRENT_DATE))::DATE;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::DATE;
+BEGIN
+    WHILE month_cursor <= last_month LOOP
+        PERFORM public.create_messages_partition(month_cursor);
+        month_cursor := (month_cursor + INTERVAL '1 month')::DATE;
+    END LOOP;
+END
+$$;
+
+INSERT INTO public.messages (id, chat_room_id, sender_id, content, file_url, is_encrypted, created_at, search_vector)
+SELECT id, chat_room_id, sender_id, content, file_url, is_encrypted, COALESCE(created_at, CURRENT_TIMESTAMP), search_vector
+FROM public.messages_legacy;
+
+DROP TABLE public.messages_legacy;
+
+-- Indexes are created on every partition; room history is served by (chat_room_id, created_at)
+CREATE INDEX IF NOT EXISTS idx_messages_chat_room_id_created_at ON public.messages(chat_room_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id ON public.messages(sender_id);
+CREATE INDEX IF NOT EXISTS idx_messages_search_vector ON public.messages USING GIN(search_vector);
+
+CREATE TRIGGER messages_search_vector_update
+    BEFORE INSERT OR UPDATE ON public.messages
+                         FOR EACH ROW
+                         EXECUTE FUNCTION messages_search_vector_update();
+
+CREATE SCHEMA IF NOT EXISTS archive;
@@ -0,0 +1,13 @@
+-- Client-generated message ids seen within the deduplication window.
+-- messages is partitioned by created_at, so a unique index there cannot span a retry that lands
+-- with a different timestamp; this small unpartitioned table holds the uniqueness instead.
+CREATE TABLE public.message_client_ids (
+    sender_id UUID NOT NULL REFERENCES public.users(id),
+    client_message_id UUID NOT NULL,
+    message_id UUID,
+    message_created_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sender_id, client_message_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_message_client_ids_created_at ON public.message_client_ids(created_at);
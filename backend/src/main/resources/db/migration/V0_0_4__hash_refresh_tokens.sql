@@ -0,0 +1,12 @@
+-- Store refresh tokens as a fixed-length SHA-256 hash instead of the full JWT
+ALTER TABLE public.refresh_tokens ADD COLUMN token_hash BYTEA;
+
+UPDATE public.refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8'));
+
+ALTER TABLE public.refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+
+DROP INDEX IF EXISTS public.idx_refresh_tokens_token;
+ALTER TABLE public.refresh_tokens DROP COLUMN token;
+
+-- Only non-revoked tokens are ever looked up
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash_active ON public.refresh_tokens(token_hash) WHERE revoked = FALSE;
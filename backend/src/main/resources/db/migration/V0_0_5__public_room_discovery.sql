@@ -0,0 +1,39 @@
+-- Public room discovery: trigram name search plus a periodically refreshed popularity summary
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Substring (ILIKE) and similarity (%) search over public room names
+CREATE INDEX IF NOT EXISTS idx_chat_rooms_name_trgm
+    ON public.chat_rooms USING GIN (name gin_trgm_ops)
+    WHERE is_private = FALSE;
+
+-- One row per public room; refreshed CONCURRENTLY by RoomPopularityRefresher
+CREATE MATERIALIZED VIEW public.chat_room_popularity AS
+SELECT cr.id                                  AS chat_room_id,
+       cr.name                                AS name,
+       cr.created_by                          AS created_by,
+       cr.created_at                          AS created_at,
+       cr.updated_at                          AS updated_at,
+       COALESCE(members.member_count, 0)      AS member_count,
+       COALESCE(recent.message_count, 0)      AS messages_last_24h,
+       -- Log scale so one very busy room does not drown out everything else
+       (2 * LN(1 + COALESCE(recent.message_count, 0)) + LN(1 + COALESCE(members.member_count, 0)))::DOUBLE PRECISION
+                                              AS activity_score,
+       CURRENT_TIMESTAMP                      AS computed_at
+FROM public.chat_rooms cr
+LEFT JOIN (
+    SELECT chat_room_id, COUNT(*) AS member_count
+    FROM public.chat_room_members
+    GROUP BY chat_room_id
+) members ON members.chat_room_id = cr.id
+LEFT JOIN (
+    SELECT chat_room_id, COUNT(*) AS message_count
+    FROM public.messages
+    WHERE created_at >= CURRENT_TIMESTAMP - INTERVAL '24 hours'
+    GROUP BY chat_room_id
+) recent ON recent.chat_room_id = cr.id
+WHERE cr.is_private = FALSE;
+
+-- Required by REFRESH MATERIALIZED VIEW CONCURRENTLY
+CREATE UNIQUE INDEX idx_chat_room_popularity_chat_room_id ON public.chat_room_popularity (chat_room_id);
+CREATE INDEX idx_chat_room_popularity_score ON public.chat_room_popularity (activity_score DESC, chat_room_id);
@@ -0,0 +1,36 @@
+-- Per-room activity summary: last message preview and message count, so room lists
+-- do not need a per-room "latest message" lookup on the partitioned messages table
+
+CREATE TABLE public.chat_room_activity (
+    chat_room_id UUID PRIMARY KEY REFERENCES public.chat_rooms(id) ON DELETE CASCADE,
+    last_message_id UUID,
+    -- Truncated text of the last message, encrypted when the message was
+    last_message_preview TEXT,
+    last_message_encrypted BOOLEAN NOT NULL DEFAULT FALSE,
+    last_sender_id UUID REFERENCES public.users(id) ON DELETE SET NULL,
+    last_activity_at TIMESTAMP,
+    message_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_room_activity_last_activity_at ON public.chat_room_activity(last_activity_at DESC);
+
+-- Backfill from existing messages (previews of encrypted messages are filled in by the next message)
+INSERT INTO public.chat_room_activity (chat_room_id, last_message_id, last_message_preview, last_message_encrypted,
+                                       last_sender_id, last_activity_at, message_count)
+SELECT latest.chat_room_id,
+       latest.id,
+       CASE WHEN latest.is_encrypted THEN NULL ELSE LEFT(latest.content, 100) END,
+       FALSE,
+       latest.sender_id,
+       latest.created_at,
+       counts.message_count
+FROM (
+    SELECT DISTINCT ON (chat_room_id) chat_room_id, id, content, is_encrypted, sender_id, created_at
+    FROM public.messages
+    ORDER BY chat_room_id, created_at DESC
+) latest
+JOIN (
+    SELECT chat_room_id, COUNT(*) AS message_count
+    FROM public.messages
+    GROUP BY chat_room_id
+) counts ON counts.chat_room_id = latest.chat_room_id;
@@ -0,0 +1,4 @@
+-- Optimistic-lock versions on users and branding; cached user summaries and branding
+-- records are only replaced by a read carrying the same or a newer version
+ALTER TABLE public.users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE public.branding ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,38 @@
+-- Let callers create a partition without draining the default partition (which takes an
+-- ACCESS EXCLUSIVE lock on messages), and make creation safe when two sessions race
+
+DROP FUNCTION IF EXISTS public.create_messages_partition(DATE);
+
+-- Create (idempotently) the partition holding the month that contains p_month.
+-- Returns NULL without creating it when rows for that month sit in the default partition
+-- and p_drain_default is false.
+CREATE FUNCTION public.create_messages_partition(p_month DATE, p_drain_default BOOLEAN DEFAULT TRUE) RETURNS TEXT AS $$
+DECLARE
+    range_start DATE := date_trunc('month', p_month)::DATE;
+    range_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'messages_p' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass('public.' || partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end) THEN
+        IF NOT p_drain_default THEN
+            RETURN NULL;
+        END IF;
+        -- Move rows that landed in the default partition into the new one
+        ALTER TABLE public.messages DETACH PARTITION public.messages_default;
+        EXECUTE format('CREATE TABLE IF NOT EXISTS public.%I PARTITION OF public.messages FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_end);
+        INSERT INTO public.messages
+            SELECT * FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end;
+        DELETE FROM public.messages_default WHERE created_at >= range_start AND created_at < range_end;
+        ALTER TABLE public.messages ATTACH PARTITION public.messages_default DEFAULT;
+    ELSE
+        EXECUTE format('CREATE TABLE IF NOT EXISTS public.%I PARTITION OF public.messages FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_end);
+    END IF;
+
+    RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,12 @@
+-- Refresh token hashes are unique again, as the tokens were before V0_0_4. Refresh tokens now
+-- carry a random jti, so only tokens issued before this change can have collided; of those,
+-- keep a single row per hash and prefer a revoked one so a rotated token stays dead.
+DELETE FROM public.refresh_tokens rt
+USING (
+    SELECT id, row_number() OVER (PARTITION BY token_hash ORDER BY revoked DESC, id) AS rn
+    FROM public.refresh_tokens
+) ranked
+WHERE rt.id = ranked.id AND ranked.rn > 1;
+
+DROP INDEX IF EXISTS public.idx_refresh_tokens_token_hash_active;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash ON public.refresh_tokens(token_hash);
@@ -0,0 +1,52 @@
+package com.kasper;
+
+import com.kasper.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time to a started context, and to the first repository query after it, for the default
+ * startup and the fast-start profile. Every round starts a fresh context in the same JVM, so the
+ * numbers compare the two modes rather than a cold JVM start (AppCDS only helps the latter).
+ * Needs the database from docker-compose:
+ * <pre>
+ * mvn test -Dtest=StartupTimeBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupTimeBenchmarkTest {
+
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+
+    @Test
+    void startupTime() {
+        // Warm-up; the default startup also applies any pending migrations for the fast-start runs
+        start("prod");
+        start("prod", "fast-start");
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long[] standard = start("prod");
+            long[] fastStart = start("prod", "fast-start");
+            System.out.printf("round %d: default=%d ms (first query +%d ms) fast-start=%d ms (first query +%d ms)%n",
+                    round, standard[0], standard[1], fastStart[0], fastStart[1]);
+        }
+    }
+
+    /**
+     * @return milliseconds until the context was started, and from then until the first query returned
+     */
+    private long[] start(String... profiles) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0")
+                .run()) {
+            long started = System.nanoTime();
+            context.getBean(UserRepository.class).count();
+            long queried = System.nanoTime();
+            return new long[]{(started - start) / 1_000_000, (queried - started) / 1_000_000};
+        }
+    }
+}
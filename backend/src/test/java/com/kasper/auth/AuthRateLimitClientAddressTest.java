@@ -0,0 +1,86 @@
+package com.kasper.auth;
+
+import com.kasper.auth.dto.JwtResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Behind the nginx proxy every request arrives from the proxy's address, so the per-IP signin
+ * bucket has to be keyed by the forwarded client address. Runs the real controller and rate
+ * limiter on an embedded Tomcat with the application's forwarded-header settings; the test
+ * client connects over loopback, which Tomcat trusts as an internal proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.auth.rate-limit.ip.capacity=3",
+        "app.auth.rate-limit.ip.refill-per-minute=1"
+})
+class AuthRateLimitClientAddressTest {
+
+    @Configuration
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+    @Import({AuthController.class, AuthRateLimiter.class})
+    static class Web {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private AuthService authService;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void clientsBehindTheProxyHaveTheirOwnBuckets() throws Exception {
+        when(authService.authenticateUser(any())).thenReturn(new JwtResponse());
+
+        // Distinct usernames, so only the per-IP bucket can run out
+        for (int i = 0; i < 3; i++) {
+            assertThat(signin("203.0.113.10", "first" + i)).isEqualTo(200);
+        }
+        assertThat(signin("203.0.113.10", "first3")).isEqualTo(429);
+
+        assertThat(signin("203.0.113.20", "second0")).isEqualTo(200);
+    }
+
+    private int signin(String forwardedFor, String username) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/auth/signin"))
+                .header("Content-Type", "application/json")
+                // As nginx sends it: the client address appended by $proxy_add_x_forwarded_for
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"password\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,140 @@
+package com.kasper.chat;
+
+import com.kasper.chat.dto.BulkAddMembersRequest;
+import com.kasper.chat.dto.BulkAddMembersResponse;
+import com.kasper.chat.dto.ChatRoomRequest;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A bulk import resolves ids and usernames as sets, skips existing members through ON CONFLICT
+ * and publishes a single membership event. The chunk size is shrunk so an import spans several
+ * INSERT chunks. Runs against a throwaway Postgres container and is skipped when Docker is missing.
+ */
+@SpringBootTest(properties = {
+        "app.chat.members.bulk.chunk-size=2",
+        "app.chat.public-directory-cache.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@RecordApplicationEvents
+class ChatRoomBulkMembersTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private User owner;
+    private UUID chatRoomId;
+
+    @BeforeEach
+    void setUp() {
+        owner = createUser();
+        ChatRoomRequest room = new ChatRoomRequest();
+        room.setName("room-" + UUID.randomUUID());
+        chatRoomId = chatService.createChatRoom(room, owner.getId()).getId();
+    }
+
+    @Test
+    void importsNewExistingAndUnknownUsersWithOneEvent() {
+        User member = createUser();
+        chatService.joinPublicChatRoom(chatRoomId, member.getId());
+        User first = createUser();
+        User second = createUser();
+        User third = createUser();
+        User both = createUser();
+        UUID unknownId = UUID.randomUUID();
+        String unknownUsername = "nobody-" + UUID.randomUUID();
+        events.clear();
+
+        BulkAddMembersRequest request = new BulkAddMembersRequest();
+        request.setUserIds(new ArrayList<>(List.of(first.getId(), second.getId(), both.getId(),
+                member.getId(), unknownId, first.getId())));
+        request.setUsernames(new ArrayList<>(List.of(third.getUsername(), both.getUsername(),
+                owner.getUsername(), unknownUsername)));
+        BulkAddMembersResponse response = chatService.addUsersToChatRoom(chatRoomId, request);
+
+        assertThat(response.getAdded()).isEqualTo(4);
+        assertThat(response.getAlreadyMembers()).isEqualTo(2);
+        assertThat(response.getUnknownUserIds()).containsExactly(unknownId);
+        assertThat(response.getUnknownUsernames()).containsExactly(unknownUsername);
+        assertThat(response.getMemberCount()).isEqualTo(6);
+
+        assertThat(events.stream(ChatRoomMembershipChangedEvent.class)).singleElement().satisfies(event -> {
+            assertThat(event.chatRoomId()).isEqualTo(chatRoomId);
+            assertThat(event.addedUserIds()).containsExactlyInAnyOrder(
+                    first.getId(), second.getId(), third.getId(), both.getId());
+            assertThat(event.removedUserIds()).isEmpty();
+        });
+    }
+
+    @Test
+    void repeatedImportAddsNothingAndPublishesNothing() {
+        User user = createUser();
+        BulkAddMembersRequest request = new BulkAddMembersRequest();
+        request.setUserIds(new ArrayList<>(List.of(user.getId())));
+        chatService.addUsersToChatRoom(chatRoomId, request);
+        events.clear();
+
+        BulkAddMembersResponse response = chatService.addUsersToChatRoom(chatRoomId, request);
+
+        assertThat(response.getAdded()).isZero();
+        assertThat(response.getAlreadyMembers()).isEqualTo(1);
+        assertThat(events.stream(ChatRoomMembershipChangedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void nullListsAndEntriesAreIgnored() {
+        User user = createUser();
+        BulkAddMembersRequest request = new BulkAddMembersRequest();
+        request.setUserIds(null);
+        request.setUsernames(Arrays.asList(user.getUsername(), null));
+
+        BulkAddMembersResponse response = chatService.addUsersToChatRoom(chatRoomId, request);
+
+        assertThat(response.getAdded()).isEqualTo(1);
+        assertThat(response.getUnknownUsernames()).isEmpty();
+    }
+
+    private User createUser() {
+        String name = "u" + UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("members")
+                .isActive(true)
+                .build());
+    }
+}
@@ -0,0 +1,118 @@
+package com.kasper.chat;
+
+import com.kasper.chat.dto.ChatRoomRequest;
+import com.kasper.chat.model.ChatRoomMember;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Room read paths must never load membership rows, and listing a room with many members must
+ * cost the same statements as listing a room with one. Runs against a throwaway Postgres
+ * container and is skipped when Docker is missing.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.chat.public-directory-cache.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ChatRoomMemberLoadingTest {
+
+    private static final int LARGE_ROOM_MEMBERS = 50;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void roomReadsDoNotLoadMembers() {
+        User owner = createUser();
+        UUID chatRoomId = createPublicRoom(owner, 10);
+
+        statistics.clear();
+        chatService.getChatRoomById(chatRoomId);
+        chatService.getPublicChatRooms(PageRequest.of(0, 10));
+        chatService.getChatRoomsByUserId(owner.getId());
+        chatService.joinPublicChatRoom(chatRoomId, owner.getId());
+        chatService.isUserInChatRoom(owner.getId(), chatRoomId);
+
+        assertThat(statistics.getEntityStatistics(ChatRoomMember.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void largeRoomCostsTheSameAsSmallRoom() {
+        UUID smallRoomId = createPublicRoom(createUser(), 0);
+        long smallRoomStatements = statementsFor(smallRoomId);
+
+        UUID largeRoomId = createPublicRoom(createUser(), LARGE_ROOM_MEMBERS);
+        long largeRoomStatements = statementsFor(largeRoomId);
+
+        assertThat(largeRoomStatements).isEqualTo(smallRoomStatements);
+    }
+
+    private long statementsFor(UUID chatRoomId) {
+        statistics.clear();
+        chatService.getChatRoomById(chatRoomId);
+        chatService.getPublicChatRooms(PageRequest.of(0, 10));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private UUID createPublicRoom(User owner, int extraMembers) {
+        ChatRoomRequest request = new ChatRoomRequest();
+        request.setName("room-" + UUID.randomUUID());
+        UUID chatRoomId = chatService.createChatRoom(request, owner.getId()).getId();
+        for (int i = 0; i < extraMembers; i++) {
+            chatService.joinPublicChatRoom(chatRoomId, createUser().getId());
+        }
+        return chatRoomId;
+    }
+
+    private User createUser() {
+        String name = "u" + UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("members")
+                .isActive(true)
+                .build());
+    }
+}
@@ -0,0 +1,111 @@
+package com.kasper.common.websocket;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades /ws-native on an embedded Tomcat with a client that offers permessage-deflate, and
+ * reads what the server agreed to from the 101 response.
+ */
+@SpringBootTest(classes = CompressionAwareHandshakeHandlerTest.Web.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CompressionAwareHandshakeHandlerTest {
+
+    @Configuration
+    @EnableWebSocket
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class, WebSocketServletAutoConfiguration.class})
+    static class Web implements WebSocketConfigurer {
+
+        @Value("${app.websocket.compression.enabled}")
+        private boolean compressionEnabled;
+
+        @Override
+        public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+            registry.addHandler(new TextWebSocketHandler(), "/ws-native")
+                    .setHandshakeHandler(new CompressionAwareHandshakeHandler(compressionEnabled));
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.websocket.compression.enabled=true")
+    class Enabled {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void negotiatesPermessageDeflate() throws Exception {
+            Map<String, String> headers = handshake(port);
+            assertThat(headers.get("status")).contains(" 101 ");
+            assertThat(headers.get("sec-websocket-extensions")).startsWith("permessage-deflate");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.websocket.compression.enabled=false")
+    class Disabled {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void upgradesWithoutExtensions() throws Exception {
+            Map<String, String> headers = handshake(port);
+            assertThat(headers.get("status")).contains(" 101 ");
+            assertThat(headers).doesNotContainKey("sec-websocket-extensions");
+        }
+    }
+
+    /**
+     * Response status line (under "status") and headers, with lower-cased names
+     */
+    private static Map<String, String> handshake(int port) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /ws-native HTTP/1.1\r\n"
+                    + "Host: 127.0.0.1:" + port + "\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                    + "Sec-WebSocket-Version: 13\r\n"
+                    + "Sec-WebSocket-Extensions: permessage-deflate; client_max_window_bits\r\n"
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Map<String, String> headers = new HashMap<>();
+            headers.put("status", in.readLine());
+            for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+            return headers;
+        }
+    }
+}
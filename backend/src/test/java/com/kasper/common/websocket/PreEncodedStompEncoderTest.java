@@ -0,0 +1,56 @@
+package com.kasper.common.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreEncodedStompEncoderTest {
+
+    private final PreEncodedStompEncoder encoder = new PreEncodedStompEncoder();
+
+    @Test
+    void encodesSameFrameAsDefaultEncoder() {
+        byte[] payload = "{\"message\":\"hello: world\"}".getBytes(StandardCharsets.UTF_8);
+
+        for (String subscription : new String[] { "sub-0", "sub-1" }) {
+            Message<byte[]> message = broadcastFrame(payload, subscription);
+
+            byte[] expected = new StompEncoder().encode(message.getHeaders(), payload);
+            byte[] actual = encoder.encode(message.getHeaders(), payload);
+
+            assertThat(new String(actual, StandardCharsets.UTF_8))
+                    .isEqualTo(new String(expected, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void leavesUnmarkedFramesToDefaultEncoder() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination("/topic/chat/1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setMessageId("1");
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+
+        assertThat(encoder.encode(message.getHeaders(), payload))
+                .isEqualTo(new StompEncoder().encode(message.getHeaders(), payload));
+    }
+
+    private Message<byte[]> broadcastFrame(byte[] payload, String subscription) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination("/topic/chat/1");
+        accessor.setSubscriptionId(subscription);
+        accessor.setMessageId(subscription + "-id");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(PreEncodedStompEncoder.PRE_ENCODED_HEADER, Boolean.TRUE);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
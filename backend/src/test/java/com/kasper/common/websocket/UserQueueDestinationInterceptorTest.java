@@ -0,0 +1,41 @@
+package com.kasper.common.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserQueueDestinationInterceptorTest {
+
+    private final UserQueueDestinationInterceptor interceptor = new UserQueueDestinationInterceptor();
+
+    @Test
+    void allowsTopicsAndOwnUserQueues() {
+        for (String destination : new String[] { "/topic/chat/1", "/user/queue/sync", "/queued" }) {
+            Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, destination);
+            assertThat(interceptor.preSend(subscribe, null)).isSameAs(subscribe);
+        }
+    }
+
+    @Test
+    void rejectsResolvedSessionQueues() {
+        for (StompCommand command : new StompCommand[] { StompCommand.SUBSCRIBE, StompCommand.SEND }) {
+            for (String destination : new String[] { "/queue/sync-userabc123", "/queue" }) {
+                assertThatThrownBy(() -> interceptor.preSend(frame(command, destination), null))
+                        .isInstanceOf(AccessDeniedException.class);
+            }
+        }
+    }
+
+    private Message<byte[]> frame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSessionId("session-1");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,132 @@
+package com.kasper.common.websocket;
+
+import com.kasper.common.dto.ReconnectHint;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketDrainerTest {
+
+    private static final long SPREAD_MS = 10_000;
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    @Test
+    void refusesHandshakesOnceDraining() {
+        WebSocketDrainer drainer = drainer(true, 1000);
+        assertThat(handshake(drainer).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        drainer.drain();
+
+        MockHttpServletResponse refused = handshake(drainer);
+        assertThat(refused.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(refused.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void hintsEverySessionAndReturnsOnceTheyLeave() throws Exception {
+        WebSocketDrainer drainer = drainer(true, 10_000);
+        drainer.onConnected(connected("session-1", "alice"));
+        drainer.onConnected(connected("session-2", "bob"));
+
+        CompletableFuture<Void> drain = CompletableFuture.runAsync(drainer::drain);
+
+        ArgumentCaptor<Object> hints = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate, timeout(5000).times(2))
+                .convertAndSendToUser(anyString(), eq("/queue/reconnect"), hints.capture(), headers.capture());
+        assertThat(hints.getAllValues()).allSatisfy(hint ->
+                assertThat(((ReconnectHint) hint).getReconnectAfterMs()).isBetween(0L, SPREAD_MS));
+        assertThat(headers.getAllValues())
+                .extracting(SimpMessageHeaderAccessor::getSessionId)
+                .containsExactlyInAnyOrder("session-1", "session-2");
+        assertThat(drain).isNotDone();
+
+        drainer.onDisconnect(disconnected("session-1"));
+        drainer.onDisconnect(disconnected("session-2"));
+        drain.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void givesUpWaitingAfterTheTimeout() throws Exception {
+        WebSocketDrainer drainer = drainer(true, 300);
+        drainer.onConnected(connected("session-1", "alice"));
+
+        long started = System.nanoTime();
+        CompletableFuture.runAsync(drainer::drain).get(5, TimeUnit.SECONDS);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        WebSocketDrainer drainer = drainer(false, 10_000);
+        drainer.onConnected(connected("session-1", "alice"));
+
+        drainer.drain();
+
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(), anyMap());
+        assertThat(handshake(drainer).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebSocketDrainer drainer(boolean enabled, long timeoutMs) {
+        ObjectProvider<SimpMessagingTemplate> templates = mock(ObjectProvider.class);
+        when(templates.getIfAvailable()).thenReturn(messagingTemplate);
+        ObjectProvider<TaskExecutor> executors = mock(ObjectProvider.class);
+        return new WebSocketDrainer(templates, executors, enabled, SPREAD_MS, timeoutMs);
+    }
+
+    private static MockHttpServletResponse handshake(WebSocketDrainer drainer) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        boolean accepted = drainer.beforeHandshake(new ServletServerHttpRequest(new MockHttpServletRequest()),
+                serverResponse, null, new HashMap<>());
+        serverResponse.close();
+        assertThat(accepted).isEqualTo(response.getStatus() == HttpStatus.OK.value());
+        return response;
+    }
+
+    private SessionConnectedEvent connected(String sessionId, String username) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setSessionId(sessionId);
+        return new SessionConnectedEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()),
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private SessionDisconnectEvent disconnected(String sessionId) {
+        return new SessionDisconnectEvent(this, MessageBuilder.withPayload(new byte[0]).build(),
+                sessionId, CloseStatus.GOING_AWAY);
+    }
+}
@@ -0,0 +1,103 @@
+package com.kasper.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal REST client for the endpoints a simulated user touches
+ */
+final class ChatApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    ChatApiClient(URI baseUri, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+    }
+
+    record Account(UUID id, String username, String token) {
+    }
+
+    Account signUpAndSignIn(String username, String password) throws IOException, InterruptedException {
+        expectOk(post("/api/auth/signup", null, Map.of(
+                "username", username,
+                "email", username + "@loadtest.local",
+                "password", password)));
+
+        JsonNode jwt = readJson(expectOk(post("/api/auth/signin", null, Map.of(
+                "username", username,
+                "password", password))));
+        return new Account(UUID.fromString(jwt.get("id").asText()), username, jwt.get("token").asText());
+    }
+
+    UUID createPublicRoom(Account owner, String name) throws IOException, InterruptedException {
+        JsonNode room = readJson(expectOk(post("/api/chats", owner, Map.of("name", name))));
+        return UUID.fromString(room.get("id").asText());
+    }
+
+    void joinPublicRoom(Account account, UUID roomId) throws IOException, InterruptedException {
+        expectOk(post("/api/chats/" + roomId + "/join-public", account, null));
+    }
+
+    HttpResponse<byte[]> sendMessage(Account sender, UUID roomId, String message) throws IOException, InterruptedException {
+        return post("/api/chats/" + roomId + "/messages", sender, Map.of(
+                "senderId", sender.id(),
+                "message", message));
+    }
+
+    HttpResponse<byte[]> history(Account account, UUID roomId, int size) throws IOException, InterruptedException {
+        HttpRequest request = authorized(account, "/api/chats/" + roomId + "/messages/history?size=" + size)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private HttpResponse<byte[]> post(String path, Account account, Object body) throws IOException, InterruptedException {
+        HttpRequest request = authorized(account, path)
+                .header("Content-Type", "application/json")
+                .POST(body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest.Builder authorized(Account account, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (account != null) {
+            builder.header("Authorization", "Bearer " + account.token());
+        }
+        return builder;
+    }
+
+    private HttpResponse<byte[]> expectOk(HttpResponse<byte[]> response) {
+        if (!isSuccess(response)) {
+            throw new IllegalStateException("Setup request to " + response.uri() + " failed with "
+                    + response.statusCode() + ": " + new String(response.body()));
+        }
+        return response;
+    }
+
+    private JsonNode readJson(HttpResponse<byte[]> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,204 @@
+package com.kasper.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load run with a simulated client fleet.
+ * <p>
+ * Signs up users, creates public rooms, opens STOMP connections and then drives a weighted mix of
+ * REST message sends, typing notifications and history reads at a fixed rate. Prints throughput,
+ * latency percentiles per action, end-to-end delivery latency and error counts:
+ * <pre>
+ * # in-process backend on a throwaway Postgres container (needs Docker)
+ * mvn test -Dtest=ChatLoadTest -Dloadtest=true
+ * # or against a running backend
+ * mvn test -Dtest=ChatLoadTest -Dloadtest=true -Dloadtest.baseUrl=http://localhost:8080
+ * </pre>
+ * Tunables: {@code loadtest.users}, {@code loadtest.rooms}, {@code loadtest.connections},
+ * {@code loadtest.actionsPerSecond}, {@code loadtest.durationSeconds},
+ * {@code loadtest.mix} (e.g. {@code send:70,typing:25,history:5}), {@code loadtest.sendVia}
+ * ({@code rest} or {@code stomp}) and {@code loadtest.endpoint} ({@code /ws} or {@code /ws-native}).
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ChatLoadTest {
+
+    private static final String BASE_URL = System.getProperty("loadtest.baseUrl");
+    private static final int USERS = Integer.getInteger("loadtest.users", 50);
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 5);
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 1000);
+    private static final int CONNECT_BATCH = Integer.getInteger("loadtest.connectBatch", 100);
+    private static final int DRIVERS = Integer.getInteger("loadtest.drivers", 16);
+    private static final int ACTIONS_PER_SECOND = Integer.getInteger("loadtest.actionsPerSecond", 200);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.durationSeconds", 60));
+    private static final Duration DRAIN = Duration.ofSeconds(Integer.getInteger("loadtest.drainSeconds", 5));
+    private static final String MIX = System.getProperty("loadtest.mix", "send:70,typing:25,history:5");
+    private static final String SEND_VIA = System.getProperty("loadtest.sendVia", "rest");
+    private static final String ENDPOINT = System.getProperty("loadtest.endpoint", "/ws");
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final LoadStats stats = new LoadStats();
+
+    @Test
+    void simulatedClientFleet() throws Exception {
+        Map<String, Integer> mix = parseMix(MIX);
+
+        try (LoadTestBackend backend = LoadTestBackend.start(BASE_URL);
+             StompFleet fleet = new StompFleet(backend.baseUri(), ENDPOINT, stats, objectMapper)) {
+
+            ChatApiClient api = new ChatApiClient(backend.baseUri(), objectMapper);
+            List<ChatApiClient.Account> accounts = signUpUsers(api);
+            Map<UUID, UUID> roomByUser = createRooms(api, accounts);
+
+            long connectStart = System.nanoTime();
+            fleet.connect(accounts, roomByUser, CONNECTIONS, CONNECT_BATCH);
+            System.out.printf("connected %d/%d STOMP sessions to %s in %d ms%n", fleet.connectionCount(), CONNECTIONS,
+                    ENDPOINT, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+
+            ExecutorService drivers = Executors.newFixedThreadPool(DRIVERS);
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) * DRIVERS / ACTIONS_PER_SECOND;
+            long deadline = System.nanoTime() + DURATION.toNanos();
+            List<Future<?>> running = new ArrayList<>();
+            for (int driver = 0; driver < DRIVERS; driver++) {
+                long driverSeed = SEED + driver;
+                running.add(drivers.submit(() -> drive(api, fleet, accounts, roomByUser, mix, intervalNanos, deadline, driverSeed)));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+            drivers.shutdown();
+
+            // Let in-flight broadcasts arrive before reporting
+            Thread.sleep(DRAIN.toMillis());
+            System.out.printf("users=%d rooms=%d connections=%d rate=%d/s mix=%s sendVia=%s%s",
+                    USERS, ROOMS, fleet.connectionCount(), ACTIONS_PER_SECOND, MIX, SEND_VIA, stats.report(DURATION));
+        }
+    }
+
+    private List<ChatApiClient.Account> signUpUsers(ChatApiClient api) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(USERS, 8));
+        List<Future<ChatApiClient.Account>> futures = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String username = "lt" + runId + "_" + i;
+            futures.add(pool.submit(() -> api.signUpAndSignIn(username, "loadtest-password")));
+        }
+
+        List<ChatApiClient.Account> accounts = new ArrayList<>();
+        for (Future<ChatApiClient.Account> future : futures) {
+            accounts.add(future.get());
+        }
+        pool.shutdown();
+        return accounts;
+    }
+
+    /**
+     * The first user creates every room; user i is a member of room i % rooms
+     */
+    private Map<UUID, UUID> createRooms(ChatApiClient api, List<ChatApiClient.Account> accounts) throws Exception {
+        ChatApiClient.Account owner = accounts.get(0);
+        List<UUID> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            rooms.add(api.createPublicRoom(owner, "Load test room " + i));
+        }
+
+        Map<UUID, UUID> roomByUser = new ConcurrentHashMap<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            ChatApiClient.Account account = accounts.get(i);
+            UUID roomId = rooms.get(i % rooms.size());
+            if (i != 0) {
+                api.joinPublicRoom(account, roomId);
+            }
+            roomByUser.put(account.id(), roomId);
+        }
+        return roomByUser;
+    }
+
+    private void drive(ChatApiClient api, StompFleet fleet, List<ChatApiClient.Account> accounts,
+                       Map<UUID, UUID> roomByUser, Map<String, Integer> mix, long intervalNanos,
+                       long deadline, long seed) {
+        Random random = new Random(seed);
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        // Start drivers out of phase so requests are not issued in lockstep
+        long scheduled = System.nanoTime() + (long) (random.nextDouble() * intervalNanos);
+
+        while (scheduled < deadline) {
+            LockSupport.parkNanos(scheduled - System.nanoTime());
+
+            ChatApiClient.Account account = accounts.get(random.nextInt(accounts.size()));
+            UUID roomId = roomByUser.get(account.id());
+            String action = pick(mix, random.nextInt(totalWeight));
+            try {
+                perform(api, fleet, action, account, roomId, scheduled);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                stats.recordAction(action, 0, false);
+            }
+            scheduled += intervalNanos;
+        }
+    }
+
+    /**
+     * Latency is measured from the scheduled start, so a backed-up server is not hidden by the
+     * driver falling behind its own schedule
+     */
+    private void perform(ChatApiClient api, StompFleet fleet, String action, ChatApiClient.Account account,
+                         UUID roomId, long scheduled) throws Exception {
+        switch (action) {
+            case "send" -> {
+                String probe = StompFleet.PROBE_PREFIX + System.nanoTime();
+                stats.expectDeliveries(fleet.subscriberCount(roomId));
+                if ("stomp".equals(SEND_VIA)) {
+                    stats.recordAction(action, System.nanoTime() - scheduled, fleet.sendChat(account, roomId, probe));
+                } else {
+                    HttpResponse<byte[]> response = api.sendMessage(account, roomId, probe);
+                    stats.recordAction(action, System.nanoTime() - scheduled, ChatApiClient.isSuccess(response));
+                }
+            }
+            case "typing" -> stats.recordAction(action, System.nanoTime() - scheduled, fleet.sendTyping(account, roomId));
+            case "history" -> {
+                HttpResponse<byte[]> response = api.history(account, roomId, 50);
+                stats.recordAction(action, System.nanoTime() - scheduled, ChatApiClient.isSuccess(response));
+            }
+            default -> throw new IllegalArgumentException("Unknown load test action: " + action);
+        }
+    }
+
+    private static String pick(Map<String, Integer> mix, int roll) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load test mix");
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            weights.put(entry[0], Integer.parseInt(entry[1]));
+        }
+        return weights;
+    }
+}
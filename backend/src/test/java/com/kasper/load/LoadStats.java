@@ -0,0 +1,86 @@
+package com.kasper.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counters and latency histograms collected during a load run
+ */
+final class LoadStats {
+
+    private static final String DELIVERY = "delivery";
+
+    // Keyed by action name, sorted so the report is stable between runs
+    private final Map<String, Recorder> latencies = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> successes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentSkipListMap<>();
+    private final LongAdder expectedDeliveries = new LongAdder();
+
+    void recordAction(String action, long latencyNanos, boolean success) {
+        if (success) {
+            recorder(action).recordValue(toMicros(latencyNanos));
+            counter(successes, action).increment();
+        } else {
+            counter(errors, action).increment();
+        }
+    }
+
+    void recordError(String source) {
+        counter(errors, source).increment();
+    }
+
+    void expectDeliveries(int count) {
+        expectedDeliveries.add(count);
+    }
+
+    void recordDelivery(long latencyNanos) {
+        recordAction(DELIVERY, latencyNanos, true);
+    }
+
+    String report(Duration elapsed) {
+        double seconds = elapsed.toMillis() / 1000.0;
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %10s %10s %8s %9s %9s %9s %9s%n",
+                "action", "count", "per sec", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+        latencies.forEach((action, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            long count = counter(successes, action).sum();
+            report.append(String.format("%-10s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    action, count, count / seconds, counter(errors, action).sum(),
+                    percentileMillis(histogram, 50), percentileMillis(histogram, 95),
+                    percentileMillis(histogram, 99), histogram.getMaxValue() / 1000.0));
+        });
+
+        long expected = expectedDeliveries.sum();
+        long delivered = counter(successes, DELIVERY).sum();
+        report.append(String.format("deliveries: %d of %d expected (%.2f%% missing)%n",
+                delivered, expected, expected == 0 ? 0.0 : 100.0 * (expected - delivered) / expected));
+
+        errors.forEach((source, count) -> report.append(String.format("errors[%s]=%d%n", source, count.sum())));
+        return report.toString();
+    }
+
+    private Recorder recorder(String action) {
+        // 3 significant digits, values in microseconds
+        return latencies.computeIfAbsent(action, key -> new Recorder(3));
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private static double percentileMillis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
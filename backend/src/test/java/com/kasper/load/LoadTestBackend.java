@@ -0,0 +1,62 @@
+package com.kasper.load;
+
+import com.kasper.BackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.net.URI;
+
+/**
+ * The server a load test runs against: either an already running backend, or the application
+ * started in-process on a random port with a throwaway Postgres container (requires Docker).
+ */
+final class LoadTestBackend implements AutoCloseable {
+
+    private final URI baseUri;
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private LoadTestBackend(URI baseUri, PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.baseUri = baseUri;
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static LoadTestBackend start(String baseUrl) {
+        if (baseUrl != null) {
+            return new LoadTestBackend(URI.create(baseUrl), null, null);
+        }
+
+        // Same major version as docker-compose
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14");
+        postgres.start();
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.jpa.show-sql=false",
+                // Every simulated user signs up from the same address
+                "--app.auth.rate-limit.enabled=false",
+                "--app.websocket.drain.enabled=false");
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        return new LoadTestBackend(URI.create("http://localhost:" + port), postgres, context);
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
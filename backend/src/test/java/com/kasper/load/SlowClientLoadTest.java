@@ -0,0 +1,125 @@
+package com.kasper.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput of fast requests while many slow clients hold connections open.
+ * <p>
+ * Runs against an already started backend, once with the default profile and once with
+ * {@code virtual-threads} (on Java 21), and prints the numbers to compare:
+ * <pre>
+ * mvn test -Dtest=SlowClientLoadTest -Dloadtest.baseUrl=http://localhost:8080
+ * </pre>
+ * Each slow client trickles a signin request body one byte at a time, which keeps a platform
+ * request thread blocked in the body read; with virtual threads only a virtual thread parks.
+ */
+class SlowClientLoadTest {
+
+    private static final String BASE_URL = System.getProperty("loadtest.baseUrl");
+    private static final int SLOW_CLIENTS = Integer.getInteger("loadtest.slowClients", 400);
+    private static final int FAST_CLIENTS = Integer.getInteger("loadtest.fastClients", 32);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.durationSeconds", 20));
+
+    @Test
+    void fastRequestThroughputUnderSlowClients() throws Exception {
+        assumeTrue(BASE_URL != null, "loadtest.baseUrl not set");
+        URI base = URI.create(BASE_URL);
+
+        ExecutorService slowPool = Executors.newFixedThreadPool(SLOW_CLIENTS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        for (int i = 0; i < SLOW_CLIENTS; i++) {
+            slowPool.submit(() -> trickleSignin(base, deadline));
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest fastRequest = HttpRequest.newBuilder(base.resolve("/api/test/all"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Long> latenciesMicros = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService fastPool = Executors.newFixedThreadPool(FAST_CLIENTS);
+        for (int i = 0; i < FAST_CLIENTS; i++) {
+            fastPool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(fastRequest, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            completed.incrementAndGet();
+                            latenciesMicros.add((System.nanoTime() - start) / 1_000);
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+
+        fastPool.shutdown();
+        fastPool.awaitTermination(DURATION.toSeconds() + 30, TimeUnit.SECONDS);
+        slowPool.shutdownNow();
+
+        List<Long> sorted = new ArrayList<>(latenciesMicros);
+        sorted.sort(null);
+        double seconds = DURATION.toMillis() / 1000.0;
+        System.out.printf("slowClients=%d fastClients=%d throughput=%.1f req/s errors=%d p50=%dus p99=%dus%n",
+                SLOW_CLIENTS, FAST_CLIENTS, completed.get() / seconds, failed.get(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static void trickleSignin(URI base, long deadline) {
+        byte[] body = "{\"username\":\"loadtest\",\"password\":\"loadtest\"}".getBytes(StandardCharsets.UTF_8);
+        int port = base.getPort() == -1 ? 80 : base.getPort();
+        try (Socket socket = new Socket(base.getHost(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /api/auth/signin HTTP/1.1\r\n" +
+                    "Host: " + base.getHost() + "\r\n" +
+                    "Content-Type: application/json\r\n" +
+                    "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (int i = 0; i < body.length && System.nanoTime() < deadline; i++) {
+                out.write(body[i]);
+                out.flush();
+                Thread.sleep(DURATION.toMillis() / body.length);
+            }
+        } catch (IOException e) {
+            // Connection dropped by the server, nothing to measure
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,188 @@
+package com.kasper.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fleet of STOMP connections, each authenticated as one of the simulated users and subscribed
+ * to that user's room and its typing topic, the same way the Vue client does.
+ * <p>
+ * Chat frames whose text starts with {@link #PROBE_PREFIX} carry the sender's {@code System.nanoTime()},
+ * so every subscriber can record the end-to-end delivery latency.
+ */
+final class StompFleet implements AutoCloseable {
+
+    static final String PROBE_PREFIX = "lt:";
+
+    private final String endpointUrl;
+    private final LoadStats stats;
+    private final ObjectMapper objectMapper;
+    private final WebSocketStompClient stompClient;
+
+    private final Queue<StompSession> sessions = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, StompSession> sessionByUser = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> subscribersByRoom = new ConcurrentHashMap<>();
+
+    StompFleet(URI baseUri, String endpoint, LoadStats stats, ObjectMapper objectMapper) {
+        String scheme = "https".equals(baseUri.getScheme()) ? "wss" : "ws";
+        boolean sockJs = !endpoint.endsWith("-native");
+        // SockJsClient expects the http(s) URL and negotiates the transport itself
+        this.endpointUrl = (sockJs ? baseUri.getScheme() : scheme) + "://" + baseUri.getAuthority() + endpoint;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        this.stompClient = new WebSocketStompClient(sockJs
+                ? new SockJsClient(List.of(new WebSocketTransport(webSocketClient)))
+                : webSocketClient);
+    }
+
+    /**
+     * Open {@code count} connections, assigning them to accounts round-robin, at most
+     * {@code batchSize} handshakes in flight at a time
+     */
+    void connect(List<ChatApiClient.Account> accounts, Map<UUID, UUID> roomByUser, int count, int batchSize)
+            throws InterruptedException {
+        for (int start = 0; start < count; start += batchSize) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(count, start + batchSize); i++) {
+                ChatApiClient.Account account = accounts.get(i % accounts.size());
+                batch.add(connect(account, roomByUser.get(account.id())));
+            }
+            for (CompletableFuture<Void> future : batch) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    stats.recordError("connect");
+                }
+            }
+        }
+    }
+
+    int connectionCount() {
+        return sessions.size();
+    }
+
+    int subscriberCount(UUID roomId) {
+        AtomicInteger count = subscribersByRoom.get(roomId);
+        return count == null ? 0 : count.get();
+    }
+
+    boolean sendTyping(ChatApiClient.Account account, UUID roomId) {
+        return send(account, "/app/chat/" + roomId + "/typing", Map.of(
+                "chatRoomId", roomId,
+                "senderId", account.id(),
+                "senderUsername", account.username(),
+                "type", "TYPING"));
+    }
+
+    boolean sendChat(ChatApiClient.Account account, UUID roomId, String message) {
+        return send(account, "/app/chat/" + roomId, Map.of(
+                "chatRoomId", roomId,
+                "senderId", account.id(),
+                "senderUsername", account.username(),
+                "message", message,
+                "type", "CHAT"));
+    }
+
+    private CompletableFuture<Void> connect(ChatApiClient.Account account, UUID roomId) {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + account.token());
+
+        return stompClient.connectAsync(endpointUrl, new WebSocketHttpHeaders(), connectHeaders, new ConnectionHandler())
+                .thenAccept(session -> {
+                    session.subscribe("/topic/chat/" + roomId, new ChatFrameHandler());
+                    session.subscribe("/topic/chat/" + roomId + "/typing", new ConnectionHandler());
+                    subscribersByRoom.computeIfAbsent(roomId, id -> new AtomicInteger()).incrementAndGet();
+                    sessionByUser.putIfAbsent(account.id(), session);
+                    sessions.add(session);
+                });
+    }
+
+    private boolean send(ChatApiClient.Account account, String destination, Object payload) {
+        StompSession session = sessionByUser.get(account.id());
+        if (session == null || !session.isConnected()) {
+            return false;
+        }
+        try {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            session.send(headers, objectMapper.writeValueAsBytes(payload));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(session -> {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        });
+        stompClient.stop();
+    }
+
+    private class ConnectionHandler extends StompSessionHandlerAdapter {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            stats.recordError("stomp");
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            stats.recordError("transport");
+        }
+    }
+
+    private final class ChatFrameHandler extends ConnectionHandler {
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long receivedAt = System.nanoTime();
+            try {
+                JsonNode message = objectMapper.readTree((byte[]) payload).path("message");
+                String text = message.asText("");
+                if (text.startsWith(PROBE_PREFIX)) {
+                    long sentAt = Long.parseLong(text.substring(PROBE_PREFIX.length()));
+                    stats.recordDelivery(receivedAt - sentAt);
+                }
+            } catch (IOException | NumberFormatException e) {
+                stats.recordError("decode");
+            }
+        }
+    }
+}
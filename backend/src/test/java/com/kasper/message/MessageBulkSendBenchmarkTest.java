@@ -0,0 +1,119 @@
+package com.kasper.message;
+
+import com.kasper.chat.ChatService;
+import com.kasper.chat.dto.ChatRoomRequest;
+import com.kasper.message.dto.BulkMessageRequest;
+import com.kasper.message.dto.MessageRequest;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Messages per second through {@code saveMessage} one at a time versus {@code saveMessages}
+ * in chunks, both including encryption and broadcast. Needs the database from docker-compose:
+ * <pre>
+ * mvn test -Dtest=MessageBulkSendBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageBulkSendBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 2_000);
+    private static final int CHUNK = Integer.getInteger("benchmark.chunk", 100);
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User sender;
+    private UUID chatRoomId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        sender = userRepository.save(User.builder()
+                .username("bench-" + suffix)
+                .email("bench-" + suffix + "@example.com")
+                .password("benchmark")
+                .isActive(true)
+                .build());
+
+        ChatRoomRequest room = new ChatRoomRequest();
+        room.setName("bench-" + suffix);
+        chatRoomId = chatService.createChatRoom(room, sender.getId()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM public.messages WHERE chat_room_id = ?", chatRoomId);
+        jdbcTemplate.update("DELETE FROM public.chat_room_members WHERE chat_room_id = ?", chatRoomId);
+        jdbcTemplate.update("DELETE FROM public.chat_rooms WHERE id = ?", chatRoomId);
+        jdbcTemplate.update("DELETE FROM public.users WHERE id = ?", sender.getId());
+    }
+
+    @Test
+    void bulkVersusSingleThroughput() {
+        // Warm-up
+        sendOneByOne(MESSAGES / 10);
+        sendInBulk(MESSAGES / 10);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            double single = sendOneByOne(MESSAGES);
+            double bulk = sendInBulk(MESSAGES);
+            System.out.printf("round %d: single=%.0f msg/s bulk(%d)=%.0f msg/s speedup=%.1fx%n",
+                    round, single, CHUNK, bulk, bulk / single);
+        }
+    }
+
+    private double sendOneByOne(int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            MessageRequest request = new MessageRequest();
+            request.setSenderId(sender.getId());
+            request.setMessage("benchmark message " + i);
+            request.setEncrypted(true);
+            messageService.saveMessage(chatRoomId, request, sender.getUsername());
+        }
+        return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private double sendInBulk(int count) {
+        long start = System.nanoTime();
+        for (int sent = 0; sent < count; sent += CHUNK) {
+            List<BulkMessageRequest.Item> items = new ArrayList<>(CHUNK);
+            for (int i = sent; i < Math.min(count, sent + CHUNK); i++) {
+                BulkMessageRequest.Item item = new BulkMessageRequest.Item();
+                item.setMessage("benchmark message " + i);
+                item.setEncrypted(true);
+                items.add(item);
+            }
+            BulkMessageRequest request = new BulkMessageRequest();
+            request.setSenderId(sender.getId());
+            request.setMessages(items);
+            messageService.saveMessages(chatRoomId, request, sender.getUsername());
+        }
+        return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.kasper.message;
+
+import com.kasper.chat.model.ChatRoom;
+import com.kasper.chat.repository.ChatRoomRepository;
+import com.kasper.message.model.Message;
+import com.kasper.message.repository.MessageRepository;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Insert throughput of a {@code messageRepository.save} loop with JDBC batching off (batch size 1)
+ * and with the prod profile's batch size. Needs the database from docker-compose:
+ * <pre>
+ * mvn test -Dtest=MessageInsertBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageInsertBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 5_000);
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User sender;
+    private ChatRoom chatRoom;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        sender = userRepository.save(User.builder()
+                .username("bench-" + suffix)
+                .email("bench-" + suffix + "@example.com")
+                .password("benchmark")
+                .isActive(true)
+                .build());
+        chatRoom = chatRoomRepository.save(ChatRoom.builder()
+                .name("bench-" + suffix)
+                .createdBy(sender)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Message m WHERE m.chatRoom.id = :chatRoomId")
+                    .setParameter("chatRoomId", chatRoom.getId())
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM ChatRoom cr WHERE cr.id = :id")
+                    .setParameter("id", chatRoom.getId())
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM User u WHERE u.id = :id")
+                    .setParameter("id", sender.getId())
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    void saveLoopThroughput() {
+        // Warm-up
+        insert(MESSAGES / 10, 1);
+        insert(MESSAGES / 10, null);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            double unbatched = insert(MESSAGES, 1);
+            double batched = insert(MESSAGES, null);
+            System.out.printf("round %d: unbatched=%.0f msg/s batched=%.0f msg/s speedup=%.1fx%n",
+                    round, unbatched, batched, batched / unbatched);
+        }
+    }
+
+    /**
+     * @param batchSize per-session JDBC batch size, or null for the configured value
+     * @return inserted messages per second
+     */
+    private double insert(int count, Integer batchSize) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (batchSize != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            }
+            for (int i = 0; i < count; i++) {
+                messageRepository.save(Message.builder()
+                        .chatRoom(chatRoom)
+                        .sender(sender)
+                        .content("benchmark message " + i)
+                        .build());
+            }
+        });
+        return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,231 @@
+package com.kasper.message;
+
+import com.kasper.chat.ChatService;
+import com.kasper.chat.dto.ChatRoomRequest;
+import com.kasper.message.dto.MessageRequest;
+import com.kasper.user.model.User;
+import com.kasper.user.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single-message write path must cost exactly one INSERT: no room, sender or membership
+ * lookups. A client message id adds only the claim and its link to the stored message.
+ * Statements are counted at the DataSource, so JdbcTemplate work is seen as well as Hibernate's,
+ * and only on the calling thread, so scheduled tasks do not interfere. Runs against a throwaway
+ * Postgres container and is skipped when Docker is missing.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Activity is flushed in the background, never on the write path
+        "app.chat.activity.flush-interval-ms=600000"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class MessageSaveStatementCountTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @TestConfiguration
+    static class StatementRecording {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementRecorder.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User sender;
+    private UUID chatRoomId;
+
+    @BeforeEach
+    void setUp() {
+        String name = "s" + UUID.randomUUID().toString().substring(0, 8);
+        sender = userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("statements")
+                .isActive(true)
+                .build());
+        ChatRoomRequest room = new ChatRoomRequest();
+        room.setName(name);
+        chatRoomId = chatService.createChatRoom(room, sender.getId()).getId();
+    }
+
+    @Test
+    void saveMessageIssuesSingleInsert() {
+        MessageRequest request = request(null);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        StatementRecorder.start();
+
+        messageService.saveMessage(chatRoomId, request, sender.getUsername());
+
+        assertThat(StatementRecorder.stop()).containsExactly("insert into messages");
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void saveMessageWithClientMessageIdAddsOnlyTheClaim() {
+        MessageRequest request = request(UUID.randomUUID());
+
+        StatementRecorder.start();
+        messageService.saveMessage(chatRoomId, request, sender.getUsername());
+
+        assertThat(StatementRecorder.stop()).containsExactly(
+                "insert into public.message_client_ids",
+                "insert into messages",
+                "update public.message_client_ids");
+    }
+
+    private MessageRequest request(UUID clientMessageId) {
+        MessageRequest request = new MessageRequest();
+        request.setSenderId(sender.getId());
+        request.setMessage("hello");
+        request.setClientMessageId(clientMessageId);
+        return request;
+    }
+
+    /**
+     * Wraps a DataSource so that every statement executed on the recording thread is kept,
+     * reduced to its verb and table ("insert into messages").
+     */
+    static final class StatementRecorder {
+
+        private static volatile Thread recordingThread;
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        static void start() {
+            statements.clear();
+            recordingThread = Thread.currentThread();
+        }
+
+        static List<String> stop() {
+            recordingThread = null;
+            return List.copyOf(statements);
+        }
+
+        static DataSource wrap(DataSource target) {
+            return proxy(DataSource.class, target, (method, args, result) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private static Connection wrap(Connection target) {
+            return proxy(Connection.class, target, (method, args, result) -> {
+                if (!(result instanceof Statement statement)) {
+                    return result;
+                }
+                // prepareStatement/prepareCall carry the SQL; plain statements get it on execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return wrap(statement, sql);
+            });
+        }
+
+        private static Statement wrap(Statement target, String preparedSql) {
+            Class<? extends Statement> type = target instanceof CallableStatement ? CallableStatement.class
+                    : target instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return proxy(type, target, (method, args, result) -> {
+                if (method.getName().startsWith("execute") && Thread.currentThread() == recordingThread) {
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String text ? text : "";
+                    statements.add(describe(sql));
+                }
+                return result;
+            });
+        }
+
+        private static String describe(String sql) {
+            String[] words = sql.trim().toLowerCase(Locale.ROOT).split("\\s+");
+            int tableIndex = switch (words[0]) {
+                case "insert", "delete" -> 2;
+                case "update" -> 1;
+                default -> -1;
+            };
+            if (tableIndex < 0 || words.length <= tableIndex) {
+                return words[0];
+            }
+            String table = words[tableIndex].replaceAll("[(\"].*$", "");
+            return words[0] + (tableIndex == 2 ? " " + words[1] + " " : " ") + table;
+        }
+
+        @FunctionalInterface
+        private interface ResultHandler {
+            Object handle(Method method, Object[] args, Object result) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<? extends T> type, T target, ResultHandler handler) {
+            InvocationHandler invocation = (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                // unwrap and isWrapperFor go straight to the target, so pool-specific lookups still work
+                if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                    return result;
+                }
+                return handler.handle(method, args, result);
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation);
+        }
+    }
+}
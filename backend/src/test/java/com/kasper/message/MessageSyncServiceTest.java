@@ -0,0 +1,241 @@
+package com.kasper.message;
+
+import com.kasper.chat.repository.ChatRoomMemberRepository;
+import com.kasper.common.dto.MessageResponse;
+import com.kasper.message.dto.SyncAck;
+import com.kasper.message.dto.SyncChunk;
+import com.kasper.message.dto.SyncRequest;
+import com.kasper.message.model.Message;
+import com.kasper.message.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the credit state machine against mocked repositories and a mocked messaging template.
+ * Chunks are read on the service's own pool, so every frame is awaited from the queue the
+ * template writes into, and "nothing more is sent" is a short poll that comes back empty.
+ */
+class MessageSyncServiceTest {
+
+    private static final String SESSION = "session-1";
+    private static final String USERNAME = "alice";
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID ROOM = UUID.randomUUID();
+    private static final UUID LAST_SEEN = UUID.randomUUID();
+    private static final LocalDateTime LAST_SEEN_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private static final int CHUNK_SIZE = 2;
+    private static final long RETRY_AFTER_MS = 100;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final ChatRoomMemberRepository chatRoomMemberRepository = mock(ChatRoomMemberRepository.class);
+    private final MessageService messageService = mock(MessageService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    private final BlockingQueue<SyncChunk> sent = new LinkedBlockingQueue<>();
+    private final List<Message> missed = new ArrayList<>();
+    private final List<MessageSyncService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 5; i++) {
+            missed.add(Message.builder().id(UUID.randomUUID()).createdAt(LAST_SEEN_AT.plusSeconds(i)).build());
+        }
+        when(chatRoomMemberRepository.findMemberChatRoomIds(eq(USER_ID), anyCollection())).thenReturn(List.of(ROOM));
+        when(messageRepository.findCreatedAt(ROOM, LAST_SEEN)).thenReturn(Optional.of(LAST_SEEN_AT));
+        when(messageRepository.countCatchUpAfter(eq(ROOM), any(), any(), anyInt())).thenReturn((long) missed.size());
+        when(messageRepository.findCatchUpAfter(eq(ROOM), any(), any(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime after = invocation.getArgument(1);
+            int limit = invocation.getArgument(3);
+            return missed.stream().filter(message -> message.getCreatedAt().isAfter(after)).limit(limit).toList();
+        });
+        when(messageService.mapToMessageResponse(any(Message.class))).thenAnswer(invocation ->
+                MessageResponse.builder().id(invocation.<Message>getArgument(0).getId()).build());
+        doAnswer(invocation -> sent.add(invocation.getArgument(2)))
+                .when(messagingTemplate).convertAndSendToUser(anyString(), eq("/queue/sync"), any(), anyMap());
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(MessageSyncService::destroy);
+    }
+
+    @Test
+    void chunksStopWhenCreditsRunOutAndResumeOnAck() throws InterruptedException {
+        MessageSyncService service = service(4, 16, 1);
+        service.start(SESSION, USERNAME, USER_ID, request(LAST_SEEN));
+
+        SyncChunk first = next();
+        assertThat(first.getType()).isEqualTo(SyncChunk.Type.MESSAGES);
+        assertThat(first.getChatRoomId()).isEqualTo(ROOM);
+        assertThat(ids(first)).containsExactly(missed.get(0).getId(), missed.get(1).getId());
+        assertThat(first.isRoomComplete()).isFalse();
+        assertNothingMoreSent();
+
+        service.acknowledge(SESSION, ack(first.getSyncId(), 1));
+        SyncChunk second = next();
+        assertThat(ids(second)).containsExactly(missed.get(2).getId(), missed.get(3).getId());
+        assertNothingMoreSent();
+
+        service.acknowledge(SESSION, ack(first.getSyncId(), 2));
+        SyncChunk last = next();
+        assertThat(ids(last)).containsExactly(missed.get(4).getId());
+        assertThat(last.isRoomComplete()).isTrue();
+        assertThat(next().getType()).isEqualTo(SyncChunk.Type.COMPLETE);
+        assertNothingMoreSent();
+    }
+
+    @Test
+    void ackForAnotherSyncIsIgnored() throws InterruptedException {
+        MessageSyncService service = service(4, 16, 1);
+        service.start(SESSION, USERNAME, USER_ID, request(LAST_SEEN));
+        UUID replaced = next().getSyncId();
+
+        // A second sync request on the same session replaces the first
+        service.start(SESSION, USERNAME, USER_ID, request(LAST_SEEN));
+        UUID current = next().getSyncId();
+        assertThat(current).isNotEqualTo(replaced);
+
+        service.acknowledge(SESSION, ack(replaced, 4));
+        service.acknowledge(SESSION, ack(UUID.randomUUID(), 4));
+        assertNothingMoreSent();
+
+        service.acknowledge(SESSION, ack(current, 1));
+        assertThat(next().getSyncId()).isEqualTo(current);
+    }
+
+    @Test
+    void unknownLastSeenMessageResetsTheRoom() throws InterruptedException {
+        UUID archived = UUID.randomUUID();
+        when(messageRepository.findCreatedAt(ROOM, archived)).thenReturn(Optional.empty());
+
+        MessageSyncService service = service(4, 16, 2);
+        service.start(SESSION, USERNAME, USER_ID, request(archived));
+
+        SyncChunk reset = next();
+        assertThat(reset.getType()).isEqualTo(SyncChunk.Type.RESET);
+        assertThat(reset.getChatRoomId()).isEqualTo(ROOM);
+        assertThat(next().getType()).isEqualTo(SyncChunk.Type.COMPLETE);
+        verify(messageRepository, never()).findCatchUpAfter(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void syncTurnedAwayByAFullQueueIsToldToRetry() throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatRoomMemberRepository.findMemberChatRoomIds(eq(USER_ID), anyCollection())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(ROOM);
+        });
+
+        // One thread busy with the first sync, one queued, and the third is rejected
+        MessageSyncService service = service(1, 1, 2);
+        service.start("session-1", USERNAME, USER_ID, request(LAST_SEEN));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        service.start("session-2", USERNAME, USER_ID, request(LAST_SEEN));
+        service.start("session-3", USERNAME, USER_ID, request(LAST_SEEN));
+
+        SyncChunk retry = sent.poll();
+        assertThat(retry).isNotNull();
+        assertThat(retry.getType()).isEqualTo(SyncChunk.Type.RETRY);
+        assertThat(retry.getRetryAfterMs()).isBetween(RETRY_AFTER_MS, 2 * RETRY_AFTER_MS);
+
+        // A retried sync is over: acks for it grant nothing
+        service.acknowledge("session-3", ack(retry.getSyncId(), 4));
+        release.countDown();
+        assertThat(next().getSyncId()).isNotEqualTo(retry.getSyncId());
+        SyncChunk later;
+        while ((later = sent.poll(200, TimeUnit.MILLISECONDS)) != null) {
+            assertThat(later.getSyncId()).isNotEqualTo(retry.getSyncId());
+        }
+    }
+
+    @Test
+    void disconnectCancelsTheChunkInFlight() throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(messageRepository.findCatchUpAfter(eq(ROOM), any(), any(), anyInt())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return missed.subList(0, CHUNK_SIZE + 1);
+        });
+
+        MessageSyncService service = service(4, 16, 2);
+        service.start(SESSION, USERNAME, USER_ID, request(LAST_SEEN));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        service.onDisconnect(new SessionDisconnectEvent(this,
+                MessageBuilder.withPayload(new byte[0]).build(), SESSION, CloseStatus.GOING_AWAY));
+        release.countDown();
+
+        assertNothingMoreSent();
+    }
+
+    private MessageSyncService service(int threads, int queueCapacity, int initialCredits) {
+        MessageSyncService service = new MessageSyncService(messageRepository, chatRoomMemberRepository,
+                messageService, messagingTemplate, new SimpleMeterRegistry(), threads, queueCapacity,
+                CHUNK_SIZE, 200, 1000, initialCredits, 8, RETRY_AFTER_MS);
+        services.add(service);
+        return service;
+    }
+
+    private SyncChunk next() throws InterruptedException {
+        SyncChunk chunk = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(chunk).as("next sync chunk").isNotNull();
+        return chunk;
+    }
+
+    private void assertNothingMoreSent() throws InterruptedException {
+        assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private static List<UUID> ids(SyncChunk chunk) {
+        return chunk.getMessages().stream().map(MessageResponse::getId).toList();
+    }
+
+    private static SyncRequest request(UUID lastSeenMessageId) {
+        SyncRequest.RoomCursor cursor = new SyncRequest.RoomCursor();
+        cursor.setChatRoomId(ROOM);
+        cursor.setLastSeenMessageId(lastSeenMessageId);
+        SyncRequest request = new SyncRequest();
+        request.setRooms(List.of(cursor));
+        return request;
+    }
+
+    private static SyncAck ack(UUID syncId, int credits) {
+        SyncAck ack = new SyncAck();
+        ack.setSyncId(syncId);
+        ack.setCredits(credits);
+        return ack;
+    }
+}
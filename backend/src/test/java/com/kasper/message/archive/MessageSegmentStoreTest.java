@@ -0,0 +1,87 @@
+package com.kasper.message.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageSegmentStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+
+    @TempDir
+    Path archiveDir;
+
+    private MessageSegmentStore store;
+    private final UUID chatRoomId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        store = new MessageSegmentStore();
+        ReflectionTestUtils.setField(store, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(store, "segmentMaxBytes", 2_048L);
+        ReflectionTestUtils.setField(store, "blockSize", 16);
+    }
+
+    @Test
+    void readsBackNewestFirstAcrossBlocksAndSegments() throws Exception {
+        List<ArchivedMessage> messages = messages(0, 200);
+        store.append(chatRoomId, messages.subList(0, 120));
+        store.append(chatRoomId, messages.subList(120, 200));
+
+        List<ArchivedMessage> page = store.readBefore(chatRoomId, START.plusSeconds(150), 40);
+
+        assertThat(page).hasSize(40);
+        assertThat(page.get(0)).isEqualTo(messages.get(149));
+        assertThat(page.get(39)).isEqualTo(messages.get(110));
+        assertThat(archiveDir.resolve(chatRoomId.toString()).toFile().list())
+                .filteredOn(name -> name.endsWith(".seg"))
+                .hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void tracksLastArchivedPosition() throws Exception {
+        assertThat(store.lastArchivedPosition(chatRoomId)).isEmpty();
+
+        List<ArchivedMessage> messages = messages(0, 20);
+        store.append(chatRoomId, messages);
+
+        ArchivedMessage last = messages.get(19);
+        assertThat(store.lastArchivedPosition(chatRoomId))
+                .contains(new MessageSegmentStore.Position(last.getCreatedAt(), last.getId()));
+    }
+
+    @Test
+    void returnsEmptyPageForUnknownRoomOrOldCursor() throws Exception {
+        assertThat(store.readBefore(chatRoomId, START, 10)).isEmpty();
+
+        store.append(chatRoomId, messages(0, 5));
+        assertThat(store.readBefore(chatRoomId, START, 10)).isEmpty();
+        assertThat(store.readBefore(chatRoomId, START.plusSeconds(1), 10)).hasSize(1);
+    }
+
+    private List<ArchivedMessage> messages(int from, int to) {
+        List<ArchivedMessage> messages = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            messages.add(ArchivedMessage.builder()
+                    .id(UUID.randomUUID())
+                    .chatRoomId(chatRoomId)
+                    .senderId(UUID.randomUUID())
+                    .senderUsername("user" + i)
+                    .content(i % 3 == 0 ? null : "message number " + i)
+                    .fileUrl(i % 5 == 0 ? "/api/files/" + i : null)
+                    .encrypted(i % 2 == 0)
+                    .createdAt(START.plusSeconds(i))
+                    .build());
+        }
+        return messages;
+    }
+}
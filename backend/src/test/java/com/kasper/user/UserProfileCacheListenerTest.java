@@ -0,0 +1,67 @@
+package com.kasper.user;
+
+import com.kasper.user.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Invalidation has to wait for the commit: evicting earlier would let a concurrent read cache
+ * the row as it was before the update.
+ */
+class UserProfileCacheListenerTest {
+
+    private final UserProfileCache cache = mock(UserProfileCache.class);
+    private UserProfileCacheListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<UserProfileCache> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cache);
+        listener = new UserProfileCacheListener(provider);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void updateInvalidatesWithTheNewVersionAfterCommit() {
+        User user = User.builder().id(UUID.randomUUID()).version(4L).build();
+
+        listener.onWrite(user);
+        verify(cache, never()).invalidateUser(eq(user.getId()), anyLong());
+
+        commit();
+        verify(cache).invalidateUser(user.getId(), 4L);
+    }
+
+    @Test
+    void removalBlocksTheRowForGood() {
+        User user = User.builder().id(UUID.randomUUID()).version(4L).build();
+
+        listener.onRemove(user);
+        commit();
+
+        verify(cache).invalidateUser(user.getId(), Long.MAX_VALUE);
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,93 @@
+package com.kasper.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A read that races an update must never put the old row back. The races are made
+ * deterministic by invalidating from inside the loader, i.e. while the read is in flight.
+ */
+class VersionedCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void staleLoadFinishingAfterAnInvalidationIsNotCached() {
+        VersionedCache<String, String> cache = cache(HOUR);
+
+        // Reads version 1, and version 2 commits (and invalidates) before the read returns
+        String value = cache.get("user", key -> {
+            cache.invalidate(key, 2);
+            return load("v1", 1);
+        });
+        assertThat(value).isEqualTo("v1");
+
+        assertThat(cache.get("user", key -> load("v2", 2))).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void newerCachedReadSurvivesAnOlderInvalidation() {
+        VersionedCache<String, String> cache = cache(HOUR);
+        cache.get("user", key -> load("v3", 3));
+
+        // The after-commit invalidation of version 2 arrives after version 3 was already read
+        cache.invalidate("user", 2);
+
+        assertThat(cache.get("user", key -> load("unexpected", 0))).isEqualTo("v3");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidationOfTheCachedVersionEvictsIt() {
+        VersionedCache<String, String> cache = cache(HOUR);
+        cache.get("user", key -> load("v1", 1));
+
+        cache.invalidate("user", 2);
+
+        assertThat(cache.get("user", key -> load("v2", 2))).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void removedRowIsNeverCachedAgain() {
+        VersionedCache<String, String> cache = cache(HOUR);
+        cache.get("user", key -> load("v5", 5));
+
+        cache.invalidate("user", Long.MAX_VALUE);
+
+        // A read that still sees the row (it started before the delete committed) is returned but not kept
+        assertThat(cache.get("user", key -> load("v5", 5))).isEqualTo("v5");
+        assertThat(cache.get("user", key -> load("v5", 5))).isEqualTo("v5");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        VersionedCache<String, String> cache = cache(TimeUnit.MILLISECONDS.toNanos(50));
+        cache.get("user", key -> load("v1", 1));
+        assertThat(cache.get("user", key -> load("unexpected", 0))).isEqualTo("v1");
+
+        Thread.sleep(100);
+
+        // Another node updated the row without this node hearing about it
+        assertThat(cache.get("user", key -> load("v2", 2))).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    private VersionedCache<String, String> cache(long ttlNanos) {
+        return new VersionedCache<>("test", 100, ttlNanos, new SimpleMeterRegistry());
+    }
+
+    private VersionedCache.Versioned<String> load(String value, long version) {
+        loads.incrementAndGet();
+        return new VersionedCache.Versioned<>(value, version);
+    }
+}
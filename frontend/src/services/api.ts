@@ -31,6 +31,10 @@ export const chatRoomApi = {
     return apiClient.get(`/api/chats/public?page=${page}&size=${size}`)
   },
   
+  searchPublicChatRooms(query = '', page = 0, size = 10) {
+    return apiClient.get('/api/chats/public/search', { params: { q: query, page, size } })
+  },
+  
   createChatRoom(data: { name: string, isPrivate: boolean }) {
     return apiClient.post('/api/chats', data)
   },
@@ -60,11 +64,17 @@ export const chatRoomApi = {
     return apiClient.get(`/api/chats/${chatRoomId}/messages/paginated?page=${page}&size=${size}`)
   },
   
+  // Newest first, older than `before`; the only listing that includes archived messages
+  getChatMessageHistory(chatRoomId: string, before?: string, size = 50) {
+    return apiClient.get(`/api/chats/${chatRoomId}/messages/history`, { params: { before, size } })
+  },
+  
   sendMessage(chatRoomId: string, data: { 
     senderId: string, 
     message: string,
     fileUrl?: string,
-    encrypted?: boolean 
+    encrypted?: boolean,
+    clientMessageId?: string
   }) {
     return apiClient.post(`/api/chats/${chatRoomId}/messages`, data)
   },
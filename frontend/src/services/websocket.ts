@@ -5,6 +5,7 @@ import { Client } from '@stomp/stompjs'
 
 // Define the WebSocket message type received from server
 interface WebSocketMessage {
+  messageId?: string
   chatRoomId: string
   senderId: string
   senderUsername: string
@@ -14,12 +15,25 @@ interface WebSocketMessage {
   type: 'CHAT' | 'JOIN' | 'LEAVE' | 'TYPING' | 'AUTH'
 }
 
+// Catch-up frames received on /user/queue/sync after (re)connecting
+interface SyncChunk {
+  syncId: string
+  type: 'MESSAGES' | 'RESET' | 'COMPLETE' | 'RETRY'
+  chatRoomId?: string
+  messages?: Message[]
+  roomComplete: boolean
+  retryAfterMs?: number
+}
+
 export class WebSocketService {
   private stompClient: Client | null = null
   private chatRoomId: string | null = null
   private reconnectAttempts = 0
   private maxReconnectAttempts = 5
   private reconnectTimeout: ReturnType<typeof setTimeout> | null = null
+  private syncRetryTimeout: ReturnType<typeof setTimeout> | null = null
+  // Set once a native WebSocket fails before connecting; SockJS is used from then on
+  private useSockJsFallback = typeof WebSocket === 'undefined'
   
   connect(chatRoomId: string) {
     // Close any existing connections
@@ -41,9 +55,11 @@ export class WebSocketService {
       // Get the base URL (without the port or protocol) - localhost or domain name
       const host = window.location.hostname
       
-      // Create a STOMP client over SockJS
+      // Create a STOMP client over a native WebSocket (permessage-deflate), falling back to SockJS
       this.stompClient = new Client({
-        webSocketFactory: () => new SockJS('/ws'),
+        webSocketFactory: () => this.useSockJsFallback
+          ? new SockJS('/ws')
+          : new WebSocket(`${window.location.protocol === 'https:' ? 'wss' : 'ws'}://${window.location.host}/ws-native`),
         connectHeaders: {
           'Authorization': `Bearer ${token}`
         },
@@ -79,6 +95,27 @@ export class WebSocketService {
             console.error('Error parsing WebSocket message:', err);
           }
         });
+
+        // Catch up on whatever was sent while the socket was down
+        this.stompClient?.subscribe('/user/queue/sync', (message) => {
+          try {
+            const chunk: SyncChunk = JSON.parse(message.body);
+            this.handleSyncChunk(chunk);
+          } catch (err) {
+            console.error('Error parsing sync chunk:', err);
+          }
+        });
+        this.requestSync();
+
+        // The node is shutting down: move to another one after the delay it picked for us
+        this.stompClient?.subscribe('/user/queue/reconnect', (message) => {
+          try {
+            const hint: { reconnectAfterMs: number } = JSON.parse(message.body);
+            this.scheduleReconnect(hint.reconnectAfterMs);
+          } catch (err) {
+            console.error('Error parsing reconnect hint:', err);
+          }
+        });
       };
       
       // Error handling
@@ -88,6 +125,10 @@ export class WebSocketService {
       
       this.stompClient.onWebSocketError = (event) => {
         console.error('WebSocket error:', event);
+        if (!this.useSockJsFallback && !this.stompClient?.connected) {
+          console.log('Native WebSocket unavailable, falling back to SockJS');
+          this.useSockJsFallback = true;
+        }
         this.attemptReconnect();
       };
       
@@ -120,7 +161,7 @@ export class WebSocketService {
         
         // Convert the WebSocket message to our Message type
         const message: Message = {
-          id: crypto.randomUUID(), // Generate a temp ID if not provided
+          id: data.messageId ?? crypto.randomUUID(), // Generate a temp ID if not provided
           chatRoomId: data.chatRoomId,
           sender: {
             id: data.senderId,
@@ -153,6 +194,63 @@ export class WebSocketService {
     }
   }
   
+  private requestSync() {
+    if (!this.stompClient || !this.stompClient.connected || !this.chatRoomId) {
+      return;
+    }
+    
+    const chatRoomStore = useChatRoomStore()
+    const messages = chatRoomStore.messages
+    const lastSeen = messages.length > 0 ? messages[messages.length - 1] : null
+    
+    // Nothing loaded yet: the regular history fetch covers it
+    if (!lastSeen) {
+      return;
+    }
+    
+    this.stompClient.publish({
+      destination: '/app/sync',
+      body: JSON.stringify({
+        rooms: [{ chatRoomId: this.chatRoomId, lastSeenMessageId: lastSeen.id }]
+      })
+    });
+  }
+  
+  private handleSyncChunk(chunk: SyncChunk) {
+    const chatRoomStore = useChatRoomStore()
+    
+    switch (chunk.type) {
+      case 'MESSAGES':
+        chunk.messages?.forEach(message => chatRoomStore.addMessage(message))
+        // Grant credit for the next chunk once this one is processed
+        this.stompClient?.publish({
+          destination: '/app/sync/ack',
+          body: JSON.stringify({ syncId: chunk.syncId, credits: 1 })
+        });
+        break
+      
+      case 'RESET':
+        // Too much was missed to stream: reload the room's history
+        if (chunk.chatRoomId) {
+          chatRoomStore.fetchMessages(chunk.chatRoomId)
+        }
+        this.stompClient?.publish({
+          destination: '/app/sync/ack',
+          body: JSON.stringify({ syncId: chunk.syncId, credits: 1 })
+        });
+        break
+      
+      case 'RETRY':
+        // Server is busy catching other clients up; try again after the suggested delay
+        this.syncRetryTimeout = setTimeout(() => this.requestSync(), chunk.retryAfterMs ?? 2000)
+        break
+      
+      case 'COMPLETE':
+        console.log('Caught up after reconnect')
+        break
+    }
+  }
+  
   sendMessage(message: string, fileUrl?: string) {
     if (!this.stompClient || !this.stompClient.connected) {
       console.error('WebSocket is not connected');
@@ -222,10 +320,19 @@ export class WebSocketService {
     
     this.reconnectAttempts++;
     
-    // Exponential backoff for reconnect
-    const delay = Math.min(1000 * Math.pow(2, this.reconnectAttempts), 30000);
+    // Exponential backoff for reconnect, jittered so clients dropped together do not return together
+    const backoff = Math.min(1000 * Math.pow(2, this.reconnectAttempts), 30000);
+    const delay = Math.round(backoff * (0.5 + Math.random()));
     console.log(`Attempting to reconnect in ${delay}ms (attempt ${this.reconnectAttempts})`);
     
+    this.scheduleReconnect(delay);
+  }
+  
+  private scheduleReconnect(delay: number) {
+    if (this.reconnectTimeout) {
+      clearTimeout(this.reconnectTimeout);
+    }
+    
     this.reconnectTimeout = setTimeout(() => {
       if (this.chatRoomId) {
         this.connect(this.chatRoomId);
@@ -240,6 +347,11 @@ export class WebSocketService {
       this.reconnectTimeout = null;
     }
     
+    if (this.syncRetryTimeout) {
+      clearTimeout(this.syncRetryTimeout);
+      this.syncRetryTimeout = null;
+    }
+    
     // Close the WebSocket if it exists
     if (this.stompClient) {
       this.stompClient.deactivate();
@@ -28,6 +28,15 @@ export interface Message {
   encrypted: boolean
 }
 
+export interface SliceResponse<T> {
+  content: T[]
+  size: number
+  number: number
+  first: boolean
+  last: boolean
+  empty: boolean
+}
+
 export interface PageResponse<T> {
   content: T[]
   totalPages: number
@@ -89,6 +98,8 @@ export const useChatRoomStore = defineStore('chatRoom', () => {
   const messages = ref<Message[]>([])
   const messagesLoading = ref(false)
   const messagesError = ref<string | null>(null)
+  const hasOlderMessages = ref(false)
+  const olderMessagesLoading = ref(false)
   
   const getChatRoom = async (chatRoomId: string) => {
     loading.value = true
@@ -112,9 +123,12 @@ export const useChatRoomStore = defineStore('chatRoom', () => {
     messagesError.value = null
     
     try {
-      const response = await chatRoomApi.getChatMessages(chatRoomId)
-      messages.value = response.data
-      return response.data
+      // History also reaches messages that were moved to the archive
+      const response = await chatRoomApi.getChatMessageHistory(chatRoomId)
+      const slice = response.data as SliceResponse<Message>
+      messages.value = [...slice.content].reverse()
+      hasOlderMessages.value = !slice.last
+      return messages.value
     } catch (err: any) {
       console.error('Failed to fetch messages:', err)
       messagesError.value = err.response?.data?.message || 'Failed to load messages.'
@@ -124,11 +138,33 @@ export const useChatRoomStore = defineStore('chatRoom', () => {
     }
   }
   
+  const fetchOlderMessages = async (chatRoomId: string) => {
+    if (olderMessagesLoading.value || !hasOlderMessages.value || messages.value.length === 0) {
+      return
+    }
+    olderMessagesLoading.value = true
+    
+    try {
+      const response = await chatRoomApi.getChatMessageHistory(chatRoomId, messages.value[0].createdAt)
+      const slice = response.data as SliceResponse<Message>
+      const known = new Set(messages.value.map(message => message.id))
+      const older = [...slice.content].reverse().filter(message => !known.has(message.id))
+      messages.value = [...older, ...messages.value]
+      hasOlderMessages.value = !slice.last
+    } catch (err: any) {
+      // Keeps the loaded messages on screen; the next attempt retries the same page
+      console.error('Failed to fetch older messages:', err)
+    } finally {
+      olderMessagesLoading.value = false
+    }
+  }
+  
   const sendMessage = async (chatRoomId: string, data: { 
     senderId: string, 
     message: string,
     fileUrl?: string,
-    encrypted?: boolean 
+    encrypted?: boolean,
+    clientMessageId?: string
   }) => {
     try {
       const response = await chatRoomApi.sendMessage(chatRoomId, data)
@@ -144,6 +180,10 @@ export const useChatRoomStore = defineStore('chatRoom', () => {
   
   // Method to add a message received via WebSocket
   const addMessage = (message: Message) => {
+    // Catch-up sync may deliver messages that also arrived live
+    if (messages.value.some(existing => existing.id === message.id)) {
+      return
+    }
     messages.value.push(message)
   }
 
@@ -211,7 +251,10 @@ export const useChatRoomStore = defineStore('chatRoom', () => {
     messages,
     messagesLoading,
     messagesError,
+    hasOlderMessages,
+    olderMessagesLoading,
     fetchMessages,
+    fetchOlderMessages,
     sendMessage,
     addMessage
   }